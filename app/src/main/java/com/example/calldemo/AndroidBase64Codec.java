@@ -0,0 +1,18 @@
+package com.example.calldemo;
+
+import android.util.Base64;
+
+import io.agora.media.Base64Codec;
+
+// 设备端 Base64 实现（API 26 以下没有 java.util.Base64）
+public class AndroidBase64Codec implements Base64Codec {
+    @Override
+    public String encode(byte[] data) {
+        return Base64.encodeToString(data, Base64.NO_WRAP);
+    }
+
+    @Override
+    public byte[] decode(String data) {
+        return Base64.decode(data, Base64.NO_WRAP);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.calldemo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.Consumer;
+
+/**
+ * 通话控制流水线：取 Token、入会前准备等耗时操作都在同一个后台线程串行执行，
+ * 结果只回主线程一次（成功或失败各一个回调），替代每次 new Thread + 多次 runOnUiThread。
+ * <p>
+ * 同一 key 的请求在执行完成前重复提交会合并：后台任务只跑一次，完成后只执行最后一次提交的回调，
+ * 快速挂断重拨不会堆积线程或重复入会。被替换的提交改为在主线程执行其 onSuperseded，用于收尾（如结束耗时追踪）。{@link #shutdown()} 后未执行的任务和尚未回调的结果全部丢弃。
+ * <p>
+ * 后台线程同时作为 {@link TokenRefreshScheduler} 的调度线程。
+ */
+final class CallControlExecutor {
+    private static final class Request<T> {
+        Consumer<T> onSuccess;
+        Consumer<Exception> onError;
+        Runnable onSuperseded;
+    }
+
+    private final ScheduledThreadPoolExecutor worker;
+    private final Executor mainExecutor;
+    private final Map<String, Request<?>> inFlight = new HashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * @param mainExecutor 投递到主线程的执行器，例如 {@code handler::post}
+     */
+    CallControlExecutor(Executor mainExecutor) {
+        this.mainExecutor = mainExecutor;
+        this.worker = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "call-control");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 取消的定时任务（如被重排的续期）立即移出队列
+        worker.setRemoveOnCancelPolicy(true);
+    }
+
+    ScheduledExecutorService scheduler() {
+        return worker;
+    }
+
+    /**
+     * 在后台线程执行 work，结果在主线程交给 onSuccess / onError。
+     *
+     * @return false 表示与进行中的同 key 请求合并，work 不会再次执行
+     */
+    <T> boolean submit(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return submit(key, work, onSuccess, onError, null);
+    }
+
+    /**
+     * 同 {@link #submit(String, Callable, Consumer, Consumer)}。
+     *
+     * @param onSuperseded 本次的回调被之后同 key 的提交替换（不会再执行）时在主线程执行，可为 null
+     */
+    synchronized <T> boolean submit(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Exception> onError,
+                                    Runnable onSuperseded) {
+        if (closed) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        Request<T> request = (Request<T>) inFlight.get(key);
+        boolean coalesced = request != null;
+        if (!coalesced) {
+            request = new Request<>();
+            inFlight.put(key, request);
+        } else if (request.onSuperseded != null) {
+            mainExecutor.execute(request.onSuperseded);
+        }
+        request.onSuccess = onSuccess;
+        request.onError = onError;
+        request.onSuperseded = onSuperseded;
+        if (!coalesced) {
+            worker.execute(() -> run(key, work));
+        }
+        return !coalesced;
+    }
+
+    void shutdown() {
+        synchronized (this) {
+            closed = true;
+            inFlight.clear();
+        }
+        worker.shutdownNow();
+    }
+
+    private <T> void run(String key, Callable<T> work) {
+        T result = null;
+        Exception error = null;
+        try {
+            result = work.call();
+        } catch (Exception e) {
+            error = e;
+        }
+
+        Consumer<T> onSuccess;
+        Consumer<Exception> onError;
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            Request<T> request = (Request<T>) inFlight.remove(key);
+            if (closed || request == null) {
+                return;
+            }
+            onSuccess = request.onSuccess;
+            onError = request.onError;
+        }
+
+        T value = result;
+        Exception failure = error;
+        mainExecutor.execute(() -> {
+            if (closed) {
+                return;
+            }
+            if (failure == null) {
+                if (onSuccess != null) {
+                    onSuccess.accept(value);
+                }
+            } else if (onError != null) {
+                onError.accept(failure);
+            }
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.calldemo;
+
+import android.app.Application;
+
+import io.agora.media.Utils;
+
+public class CallDemoApplication extends Application {
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Token 库默认使用 java.util.Base64，设备上统一切换为 android.util.Base64
+        Utils.setBase64Codec(new AndroidBase64Codec());
+    }
+}
@@ -4,15 +4,131 @@ import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
+import android.os.Binder;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.util.Log;
+import android.widget.Toast;
 import androidx.core.app.NotificationCompat;
 
-public class CallForegroundService extends Service {
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import io.agora.media.RtcTokenBuilder2;
+import io.agora.media.TokenCache;
+import io.agora.rtc2.Constants;
+import io.agora.rtc2.IRtcEngineEventHandler;
+import io.agora.rtc2.RtcEngine;
+import io.agora.rtc2.video.VideoEncoderConfiguration;
+
+/**
+ * 通话前台服务：持有声网引擎、频道成员、Token 续期和通话状态，生命周期独立于界面。
+ * Activity 旋转重建或被系统回收后重新打开，绑定即可拿到当前状态，无需重新创建引擎和入会；
+ * 只有用户主动退出（Activity finish）时才停止服务、离开频道。
+ * 服务在主线程创建，通话状态与原来一样只在主线程读写。
+ */
+public class CallForegroundService extends Service implements CallSession {
     private static final String CHANNEL_ID = "CallDemo_Channel";
     private static final int NOTIFICATION_ID = 1001; // 前台服务通知ID
 
+    // 声网核心配置
+    private static final String AGORA_APP_ID = "585ceb26ea044e649a7a39304d323dc7";
+    private static final String CHANNEL_NAME = "HoneyFamily";
+    static final int LOCAL_UID = 1001;
+    // 本地 Token 服务地址（./gradlew :token-server:run），为空时在本机签发
+    private static final String TOKEN_SERVER_URL = "";
+
+    private static final String TAG = "CallDemo";
+    // 每次通话结束后追加质量统计（应用私有目录）
+    private static final String TELEMETRY_FILE = "call-telemetry.log";
+
+    private String currentToken = ""; // 保存当前有效Token，仅主线程
+    // 通话控制：取 Token 等后台操作串行执行、合并重复请求，结果一次性回主线程
+    private static final String REQUEST_TOKEN = "token";
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private CallControlExecutor callControl;
+    // 主动续期：在 Token 过期前签发新 Token 并 renewToken，与通话控制共用后台线程
+    private TokenRefreshScheduler tokenRefreshScheduler;
+    // 引擎、Token、权限全部就绪后立即入会
+    private final ReadinessGate joinGate = new ReadinessGate(this::joinChannelForListening);
+    // 耗时追踪（单调时钟纳秒）：入会链路从服务创建 / 挂断重进开始到 onJoinChannelSuccess，
+    // 通话链路从点击呼叫/接听开始到远端首帧；结束时在 logcat 输出瀑布图和跨次汇总
+    private final SpanTracer joinTrace = new SpanTracer("join", System::nanoTime);
+    private final SpanTracer callTrace = new SpanTracer("call", System::nanoTime);
+    private volatile int joinSpan = SpanTracer.NO_SPAN; // joinChannel 到 onJoinChannelSuccess
+    private int firstFrameSpan = SpanTracer.NO_SPAN; // 开启音视频到远端首帧，仅主线程
+
+    // 自适应编码档位，从低到高；初始为第 2 档 640x360@15（原固定配置）
+    private static final VideoEncoderConfiguration.VideoDimensions[] ENCODER_DIMENSIONS = {
+            VideoEncoderConfiguration.VD_320x180,
+            VideoEncoderConfiguration.VD_480x360,
+            VideoEncoderConfiguration.VD_640x360,
+            VideoEncoderConfiguration.VD_960x540,
+    };
+    private static final VideoEncoderConfiguration.FRAME_RATE[] ENCODER_FRAME_RATES = {
+            VideoEncoderConfiguration.FRAME_RATE.FRAME_RATE_FPS_15,
+            VideoEncoderConfiguration.FRAME_RATE.FRAME_RATE_FPS_15,
+            VideoEncoderConfiguration.FRAME_RATE.FRAME_RATE_FPS_15,
+            VideoEncoderConfiguration.FRAME_RATE.FRAME_RATE_FPS_24,
+    };
+    // 由 onRtcStats / onLocalVideoStats / onNetworkQuality 投递到主线程驱动，仅通话中（IN_CALL）采样，仅主线程
+    private final EncoderLadder encoderLadder =
+            new EncoderLadder(ENCODER_DIMENSIONS.length, 2, this::onEncoderStepChanged, SystemClock::elapsedRealtime);
+
+    // Token缓存：挂断重进频道、续期失败重试时复用未过期的 Token；提前续签与通话控制共用后台线程，随服务销毁
+    private TokenCache tokenCache;
+    private static final int TOKEN_EXPIRE = 36000; // 本地签发的 Token 及权限有效期（秒）
+    private static final TokenCache.Key TOKEN_KEY =
+            TokenCache.Key.rtc(AGORA_APP_ID, CHANNEL_NAME, LOCAL_UID, RtcTokenBuilder2.Role.ROLE_PUBLISHER, TOKEN_EXPIRE);
+
+    private final IBinder binder = new SessionBinder();
+    private Listener listener; // 当前绑定的界面，未绑定时为 null，仅主线程
+    private Vibrator vibrator;
+    private RtcEngine mRtcEngine;
+    private RosterAdapter rosterAdapter; // 频道内用户列表（不含自己），界面重建时直接复用
+    private RosterUpdateBatcher rosterBatcher; // 回调线程的加入/离开事件按帧批量更新列表
+    private final ChannelRoster channelRoster = new ChannelRoster(); // 频道成员（不含自己），任意线程可读快照
+    private final ChannelRoster participants = new ChannelRoster(); // 需要显示画面的远端（通话中或预热），仅主线程
+    // 正在发布音频 / 视频的成员，回调线程直接更新，开始通话时据此决定显示哪些画面（列表适配器要等批量处理才更新）
+    private final ChannelRoster audioPublishers = new ChannelRoster();
+    private final ChannelRoster videoPublishers = new ChannelRoster();
+
+    // 通话状态：只在主线程读写，SDK 回调先投递到主线程再处理
+    private final CallStateMachine callState = new CallStateMachine(SystemClock::elapsedRealtime);
+    private boolean firstFrameReported = false; // 本次通话是否已统计首帧耗时
+    // 通话质量采集：开启音视频时开始，挂断时汇总分位数并写入 TELEMETRY_FILE
+    private final CallTelemetry telemetry = new CallTelemetry(2048);
+
+    // 状态标记
+    private PowerManager.WakeLock wakeLock;
+    private PowerManager.WakeLock screenWakeLock; // 新增屏幕唤醒锁
+    // 预热：振铃或选中用户时提前开启音视频模块和摄像头（不发布），接听/呼叫时只需取消静音
+    private static final long PREWARM_TIMEOUT_MS = 30_000;
+    private int prewarmedUid = -1; // 已预热的用户，-1 表示未预热，仅主线程
+    private final Runnable prewarmTimeout = this::coolDownCallMedia;
+    private volatile boolean isJoined = false; // 是否已在频道内（挂断后保持）
+
+    // 本地绑定：界面与服务同进程，直接返回会话
+    final class SessionBinder extends Binder {
+        CallSession session() {
+            return CallForegroundService.this;
+        }
+    }
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -20,11 +136,61 @@ public class CallForegroundService extends Service {
         createNotificationChannel();
         // 启动前台服务（必须显示通知，无法隐藏）
         startForeground(NOTIFICATION_ID, buildNotification());
+        joinTrace.begin("service");
+
+        // 0. 取 Token 与后续初始化并行进行，拿到后发出就绪信号
+        callControl = new CallControlExecutor(mainHandler::post);
+        tokenCache = new TokenCache(callControl.scheduler());
+        tokenRefreshScheduler = new TokenRefreshScheduler(callControl.scheduler(), tokenRefreshCallback);
+        requestTokenForJoin();
+
+        // 1. 界面在权限全部授予后才启动服务
+        joinGate.signal(ReadinessGate.PERMISSIONS);
+
+        // 2. 初始化震动器
+        vibrator = (Vibrator) getSystemService(VIBRATOR_SERVICE);
+
+        // 3. 初始化唤醒锁（修复锁屏振动）
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        // 部分唤醒锁：保持CPU运行
+        wakeLock = powerManager.newWakeLock(
+                PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP,
+                "CallDemo::VibrateWakeLock"
+        );
+        // 屏幕唤醒锁：点亮屏幕
+        screenWakeLock = powerManager.newWakeLock(
+                PowerManager.SCREEN_BRIGHT_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP | PowerManager.ON_AFTER_RELEASE,
+                "CallDemo::ScreenWakeLock"
+        );
+
+        // 只有空闲监听时才能发起呼叫；选中即预热，取消选中即关闭
+        rosterAdapter = new RosterAdapter(this::onRosterSelected);
+        rosterBatcher = new RosterUpdateBatcher(rosterAdapter);
+        try {
+            int span = joinTrace.start("engine.create");
+            initAgoraEngine();
+            joinTrace.end(span);
+            span = joinTrace.start("video.config");
+            setupVideoConfig();
+            joinTrace.end(span);
+            // 引擎就绪；Token 已到达时立即加入频道（仅监听）
+            joinGate.signal(ReadinessGate.ENGINE);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Toast.makeText(this, "初始化失败：" + e.getMessage(), Toast.LENGTH_LONG).show();
+            stopSelf();
+        }
+    }
+
+    // 被系统杀掉后不自动重启：没有界面时不应在后台重新打开摄像头和麦克风
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        return START_NOT_STICKY;
     }
 
     @Override
     public IBinder onBind(Intent intent) {
-        return null; // 无需绑定，返回null
+        return binder;
     }
 
     // 创建通知渠道
@@ -51,9 +217,842 @@ public class CallForegroundService extends Service {
                 .build();
     }
 
+    @Override
+    public RtcEngine engine() {
+        return mRtcEngine;
+    }
+
+    @Override
+    public RosterAdapter roster() {
+        return rosterAdapter;
+    }
+
+    @Override
+    public SpanTracer callTrace() {
+        return callTrace;
+    }
+
+    @Override
+    public CallStateMachine.State state() {
+        return callState.state();
+    }
+
+    @Override
+    public boolean isMediaActive() {
+        return callState.inCall() || prewarmedUid != -1;
+    }
+
+    // 绑定时回放当前状态、远端画面和预热，界面据此直接恢复，不依赖历史事件
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        // 没有界面时（含息屏回收后）不会有帧回调，列表更新改走 Handler
+        rosterBatcher.setFrameDriven(listener != null);
+        if (listener == null) {
+            // 界面不在前台时不占用摄像头
+            coolDownCallMedia();
+            return;
+        }
+        listener.onCallStateChanged(callState.state(), callState.state(), callState.remoteUid());
+        ChannelRoster.Snapshot uids = participants.snapshot();
+        for (int i = 0; i < uids.size(); i++) {
+            listener.onParticipantAdded(uids.get(i));
+        }
+        RosterMember selected = rosterAdapter.getSelected();
+        listener.onSelectionChanged(selected != null && callState.is(CallStateMachine.State.LISTENING));
+        if (prewarmedUid != -1) {
+            listener.onPrewarm(true);
+        } else if (callState.is(CallStateMachine.State.RINGING)) {
+            // 界面不在时来电，打开界面后补做预热
+            prewarmCallMedia(callState.remoteUid());
+        }
+    }
+
+    private void onRosterSelected(RosterMember member) {
+        boolean listening = callState.is(CallStateMachine.State.LISTENING);
+        if (listener != null) {
+            listener.onSelectionChanged(member != null && listening);
+        }
+        if (!listening) {
+            return;
+        }
+        if (member != null) {
+            prewarmCallMedia(member.uid);
+        } else {
+            coolDownCallMedia();
+        }
+    }
+
+    private void initAgoraEngine() throws Exception {
+        if (mRtcEngine == null) {
+            mRtcEngine = RtcEngine.create(getApplicationContext(), AGORA_APP_ID, mRtcEventHandler);
+            // 初始化时先关闭音视频
+            mRtcEngine.disableVideo();
+            mRtcEngine.disableAudio();
+            mRtcEngine.setChannelProfile(Constants.CHANNEL_PROFILE_COMMUNICATION);
+        }
+    }
+
+    // 优化视频编码配置：按自适应档位的当前档设置编码参数
+    private void setupVideoConfig() {
+        applyEncoderStep(mRtcEngine, encoderLadder.step());
+        // 同时发送大小流；默认订阅小流，网格里只有一人或当前说话人才切到大流
+        mRtcEngine.enableDualStreamMode(true);
+        mRtcEngine.setRemoteDefaultVideoStreamType(Constants.VIDEO_STREAM_LOW);
+    }
+
+    private static void applyEncoderStep(RtcEngine engine, int step) {
+        engine.setVideoEncoderConfiguration(new VideoEncoderConfiguration(
+                ENCODER_DIMENSIONS[step],
+                ENCODER_FRAME_RATES[step],
+                VideoEncoderConfiguration.STANDARD_BITRATE,
+                VideoEncoderConfiguration.ORIENTATION_MODE.ORIENTATION_MODE_ADAPTIVE
+        ));
+    }
+
+    // 编码档位变化（主线程）：记录触发原因并立即应用
+    private void onEncoderStepChanged(int from, int to, String reason) {
+        Log.i(TAG, "encoder step " + from + " -> " + to + " (" + ENCODER_DIMENSIONS[to].width + "x"
+                + ENCODER_DIMENSIONS[to].height + "@" + ENCODER_FRAME_RATES[to].getValue() + "), " + reason);
+        if (mRtcEngine != null) {
+            applyEncoderStep(mRtcEngine, to);
+        }
+    }
+
+    // 编码统计投递到主线程，仅通话中交给档位评估；挂断后迟到的统计直接丢弃
+    private void feedEncoderLadder(Runnable sample) {
+        mainHandler.post(() -> {
+            if (callState.is(CallStateMachine.State.IN_CALL)) {
+                sample.run();
+            }
+        });
+    }
+
+    // 获取Token后发出就绪信号，由 joinGate 决定何时入会
+    private void requestTokenForJoin() {
+        joinGate.clear(ReadinessGate.TOKEN);
+        getTokenFromServer(() -> joinGate.signal(ReadinessGate.TOKEN));
+    }
+
+    // 加入频道仅用于监听来电（不开启音视频），由 joinGate 在全部条件就绪时调用
+    private void joinChannelForListening() {
+        if (currentToken.isEmpty() || mRtcEngine == null) {
+            Toast.makeText(this, "Token为空或引擎未初始化，无法加入频道", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        // 加入频道，但不开启音视频
+        joinSpan = joinTrace.start("join");
+        mRtcEngine.joinChannel(currentToken, CHANNEL_NAME, null, LOCAL_UID);
+        Toast.makeText(this, "已进入通话频道，等待来电/可主动呼叫...", Toast.LENGTH_SHORT).show();
+    }
+
+    // 主动呼叫列表中选中的用户
+    @Override
+    public void callSelected() {
+        RosterMember selected = rosterAdapter.getSelected();
+        if (selected == null || selected.uid == LOCAL_UID || !channelRoster.contains(selected.uid)) {
+            Toast.makeText(this, "请选择有效的用户进行呼叫", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        int uid = selected.uid;
+        if (!callState.is(CallStateMachine.State.LISTENING)) {
+            Toast.makeText(this, "当前已有通话，请先挂断", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // 主动呼叫时直接开启音视频，对方开始发布音频或首帧到达时进入通话
+        boolean warm = takePrewarmed(uid);
+        callTrace.begin("dial uid=" + uid + (warm ? " prewarmed" : ""));
+        try {
+            startCallMedia();
+            moveTo(CallStateMachine.State.DIALING, uid);
+            addCallParticipants(uid);
+            Toast.makeText(this, "已呼叫用户 UID：" + uid, Toast.LENGTH_SHORT).show();
+        } catch (Exception e) {
+            e.printStackTrace();
+            Toast.makeText(this, "呼叫失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+            abortCall();
+        }
+    }
+
+    // 接听通话
+    @Override
+    public void answer() {
+        if (!callState.is(CallStateMachine.State.RINGING)) {
+            return;
+        }
+        int uid = callState.remoteUid();
+        boolean warm = takePrewarmed(uid);
+        callTrace.begin("answer uid=" + uid + (warm ? " prewarmed" : ""));
+        try {
+            startCallMedia();
+            moveTo(CallStateMachine.State.IN_CALL);
+            Log.i(TAG, "ring-to-answer: " + (callState.enteredAt(CallStateMachine.State.IN_CALL)
+                    - callState.enteredAt(CallStateMachine.State.RINGING)) + " ms");
+            addCallParticipants(uid);
+            Toast.makeText(this, "已接听通话（UID：" + uid + "）", Toast.LENGTH_SHORT).show();
+        } catch (Exception e) {
+            e.printStackTrace();
+            Toast.makeText(this, "接听失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+            abortCall();
+        }
+    }
+
+    // 通话对象和已在发布音视频的其他成员（同一频道内都能听到）一并显示画面，然后开始等待首帧
+    private void addCallParticipants(int uid) {
+        int span = callTrace.start("remote.setup");
+        addParticipant(uid);
+        ChannelRoster.Snapshot members = channelRoster.snapshot();
+        for (int i = 0; i < members.size(); i++) {
+            int member = members.get(i);
+            if (audioPublishers.contains(member) || videoPublishers.contains(member)) {
+                addParticipant(member);
+            }
+        }
+        callTrace.end(span);
+        firstFrameSpan = callTrace.start("first-frame");
+    }
+
+    // 开始通话失败：已进入通话则正常结束，否则关闭已开启的音视频，来电回到监听
+    private void abortCall() {
+        if (callState.inCall()) {
+            endCall();
+            return;
+        }
+        if (mRtcEngine != null) {
+            stopCallMedia();
+        }
+        clearParticipants();
+        if (callState.is(CallStateMachine.State.RINGING)) {
+            moveTo(CallStateMachine.State.LISTENING);
+        }
+    }
+
+    private void addParticipant(int uid) {
+        if (participants.add(uid) && listener != null) {
+            listener.onParticipantAdded(uid);
+        }
+    }
+
+    private void removeParticipant(int uid) {
+        if (participants.remove(uid) && listener != null) {
+            listener.onParticipantRemoved(uid);
+        }
+    }
+
+    private void clearParticipants() {
+        ChannelRoster.Snapshot uids = participants.snapshot();
+        for (int i = 0; i < uids.size(); i++) {
+            removeParticipant(uids.get(i));
+        }
+    }
+
+    // 拒绝通话
+    @Override
+    public void reject() {
+        if (moveTo(CallStateMachine.State.LISTENING)) {
+            Toast.makeText(this, "已拒绝通话", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private boolean moveTo(CallStateMachine.State to) {
+        return moveTo(to, callState.remoteUid());
+    }
+
+    // 状态迁移的唯一入口：校验并切换状态，进入/离开振铃时启停振铃，并通知界面
+    private boolean moveTo(CallStateMachine.State to, int uid) {
+        CallStateMachine.State from = callState.state();
+        if (!callState.transition(to, uid)) {
+            Log.w(TAG, "call state " + from + " -> " + to + " ignored");
+            return false;
+        }
+        Log.i(TAG, "call state " + from + " -> " + to + " (uid " + callState.remoteUid() + ", "
+                + (callState.enteredAt(to) - callState.enteredAt(from)) + " ms in " + from + ")");
+        if (from == CallStateMachine.State.RINGING) {
+            stopRinging();
+        }
+        if (to == CallStateMachine.State.LISTENING || to == CallStateMachine.State.IDLE) {
+            // 来电被拒绝/取消、离开频道：预热的采集和画面不再需要
+            coolDownCallMedia();
+        }
+        if (to == CallStateMachine.State.RINGING) {
+            startRinging();
+            prewarmCallMedia(uid);
+        } else if (to == CallStateMachine.State.DIALING || (to == CallStateMachine.State.IN_CALL && from == CallStateMachine.State.RINGING)) {
+            telemetry.start(System.currentTimeMillis(), SystemClock.elapsedRealtime());
+        } else if (to == CallStateMachine.State.IN_CALL) {
+            callTrace.mark("answered");
+        } else if (to == CallStateMachine.State.TEARING_DOWN) {
+            firstFrameReported = false;
+            // 下次通话从初始档开始，不带入本次的样本和降档冷却
+            encoderLadder.reset();
+            finishCallTrace();
+            flushTelemetry(callState.remoteUid());
+        }
+        if (listener != null) {
+            listener.onCallStateChanged(from, to, callState.remoteUid());
+        }
+        return true;
+    }
+
+    /**
+     * 预热通话：先静音本地发布和远端订阅，再开启音视频模块和摄像头采集，并通知界面启动本地预览、预先绑定该用户的画面。
+     * 麦克风不开启。接听/呼叫时 {@link #startCallMedia()} 只需开麦和取消静音，首帧不再等待模块初始化和相机启动。
+     * 界面未绑定时不预热；超过 PREWARM_TIMEOUT_MS 没有开始通话则自动关闭。
+     */
+    private void prewarmCallMedia(int uid) {
+        if (mRtcEngine == null || listener == null || callState.inCall()) {
+            return;
+        }
+        mainHandler.removeCallbacks(prewarmTimeout);
+        mainHandler.postDelayed(prewarmTimeout, PREWARM_TIMEOUT_MS);
+        if (prewarmedUid == uid) {
+            return;
+        }
+        if (prewarmedUid != -1) {
+            // 已预热，只换绑远端画面
+            removeParticipant(prewarmedUid);
+            prewarmedUid = uid;
+        } else {
+            long startNs = System.nanoTime();
+            mRtcEngine.muteLocalAudioStream(true);
+            mRtcEngine.muteLocalVideoStream(true);
+            mRtcEngine.muteAllRemoteAudioStreams(true);
+            mRtcEngine.muteAllRemoteVideoStreams(true);
+            mRtcEngine.enableLocalAudio(false);
+            mRtcEngine.enableAudio();
+            mRtcEngine.enableVideo();
+            mRtcEngine.enableLocalVideo(true);
+            prewarmedUid = uid;
+            listener.onPrewarm(true);
+            Log.i(TAG, "prewarm: " + (System.nanoTime() - startNs) / 1_000_000 + " ms");
+        }
+        addParticipant(uid);
+    }
+
+    // 关闭预热：停止采集、解绑远端画面并通知界面停止预览，回到纯监听
+    private void coolDownCallMedia() {
+        mainHandler.removeCallbacks(prewarmTimeout);
+        if (prewarmedUid == -1 || callState.inCall()) {
+            return;
+        }
+        removeParticipant(prewarmedUid);
+        prewarmedUid = -1;
+        if (mRtcEngine != null) {
+            stopCallMedia();
+        }
+        if (listener != null) {
+            listener.onPrewarm(false);
+        }
+    }
+
+    /**
+     * 开始通话时接管预热状态：预热的是别的用户时先解绑那一格。
+     *
+     * @return true 表示本次通话对象已预热
+     */
+    private boolean takePrewarmed(int uid) {
+        mainHandler.removeCallbacks(prewarmTimeout);
+        int warmUid = prewarmedUid;
+        prewarmedUid = -1;
+        if (warmUid != -1 && warmUid != uid) {
+            removeParticipant(warmUid);
+        }
+        return warmUid == uid;
+    }
+
+    // 汇总本次通话的质量统计：分位数计算和写文件都在后台线程
+    private void flushTelemetry(int uid) {
+        CallTelemetry.Report report = telemetry.stop("uid=" + uid, SystemClock.elapsedRealtime());
+        if (report == null) {
+            return;
+        }
+        File file = new File(getFilesDir(), TELEMETRY_FILE);
+        callControl.scheduler().execute(() -> {
+            try {
+                report.appendTo(file);
+                Log.i(TAG, report.format());
+            } catch (IOException e) {
+                Log.w(TAG, "telemetry flush failed", e);
+            }
+        });
+    }
+
+    // 远端可接通（加入频道或重新发布音频）：空闲监听时振铃；通话中有其他人开始发布则加入画面，成为多人通话
+    private void onRemoteAvailable(int uid) {
+        if (callState.is(CallStateMachine.State.DIALING) && uid == callState.remoteUid()) {
+            // 对方已接听
+            moveTo(CallStateMachine.State.IN_CALL);
+        } else if (callState.inCall()) {
+            if (channelRoster.contains(uid)) {
+                addParticipant(uid);
+            }
+        } else if (callState.is(CallStateMachine.State.LISTENING) && channelRoster.contains(uid)) {
+            moveTo(CallStateMachine.State.RINGING, uid);
+        }
+    }
+
+    // 远端停止发布音频或离开频道：来电取消；通话中移出画面，最后一位离开时结束通话
+    private void onRemoteGone(int uid, String tip) {
+        if (callState.inCall() && participants.contains(uid)) {
+            removeParticipant(uid);
+            ChannelRoster.Snapshot remaining = participants.snapshot();
+            if (remaining.size() == 0) {
+                endCall();
+            } else if (uid == callState.remoteUid()) {
+                callState.retarget(remaining.get(0));
+            }
+        } else if (uid != -1 && uid == callState.remoteUid() && callState.is(CallStateMachine.State.RINGING)) {
+            moveTo(CallStateMachine.State.LISTENING);
+        } else {
+            return;
+        }
+        Toast.makeText(this, tip, Toast.LENGTH_SHORT).show();
+    }
+
+    // 当前通话对象的首帧画面：呼叫中视为对方已接听，并统计接听（或呼叫）到首帧的耗时
+    private void onRemoteFirstFrame(int uid) {
+        if (uid != callState.remoteUid()) {
+            return;
+        }
+        if (callState.is(CallStateMachine.State.DIALING)) {
+            moveTo(CallStateMachine.State.IN_CALL);
+        }
+        if (!callState.is(CallStateMachine.State.IN_CALL) || firstFrameReported) {
+            return;
+        }
+        firstFrameReported = true;
+        long latencyMs;
+        if (callState.previous() == CallStateMachine.State.RINGING) {
+            latencyMs = callState.elapsedSince(CallStateMachine.State.IN_CALL);
+            Log.i(TAG, "answer-to-first-frame: " + latencyMs + " ms");
+        } else {
+            latencyMs = callState.elapsedSince(CallStateMachine.State.DIALING);
+            Log.i(TAG, "dial-to-first-frame: " + latencyMs + " ms");
+        }
+        telemetry.record(CallTelemetry.FIRST_FRAME_MS, (int) latencyMs);
+        callTrace.end(firstFrameSpan);
+        finishCallTrace();
+    }
+
+    // 通话链路结束（首帧到达或未等到首帧就挂断）：输出本次瀑布图和跨次汇总
+    private void finishCallTrace() {
+        String waterfall = callTrace.finish();
+        if (waterfall != null) {
+            Log.i(TAG, waterfall + callTrace.summary());
+        }
+    }
+
+    // 频道已离开：结束进行中的通话或来电，回到未入会状态
+    private void onChannelLeft() {
+        if (callState.inCall()) {
+            endCall();
+        } else if (!callState.is(CallStateMachine.State.IDLE)) {
+            moveTo(CallStateMachine.State.IDLE);
+        }
+    }
+
+    // 启动振铃（修复锁屏振动）
+    private void startRinging() {
+        // 1. 唤醒屏幕（修复锁屏不振动核心）
+        if (screenWakeLock != null && !screenWakeLock.isHeld()) {
+            screenWakeLock.acquire(30*1000); // 持锁30秒
+        }
+        if (wakeLock != null && !wakeLock.isHeld()) {
+            wakeLock.acquire(30*1000);
+        }
+
+        // 2. 循环振铃
+        if (vibrator != null && vibrator.hasVibrator()) {
+            try {
+                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
+                    VibrationEffect effect = VibrationEffect.createWaveform(
+                            new long[]{0, 1000, 2000},
+                            0 // 无限循环
+                    );
+                    vibrator.vibrate(effect);
+                } else {
+                    vibrator.vibrate(new long[]{0, 1000, 2000}, 0);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                Toast.makeText(this, "振动失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        }
+
+        Toast.makeText(this, "有来电（UID：" + callState.remoteUid() + "），请接听/拒绝", Toast.LENGTH_LONG).show();
+    }
+
+    // 停止振铃
+    private void stopRinging() {
+        if (vibrator != null) {
+            vibrator.cancel();
+        }
+        if (wakeLock != null && wakeLock.isHeld()) {
+            wakeLock.release();
+        }
+        if (screenWakeLock != null && screenWakeLock.isHeld()) {
+            screenWakeLock.release();
+        }
+    }
+
+    // 从服务端获取Token：优先使用缓存，剩余有效期不足时才重新签发
+    // 进行中的请求会被合并，完成后只执行最后一次提交的 onSuccess；被合并掉的请求在替换时结束自己的 token 阶段
+    private void getTokenFromServer(Runnable onSuccess) {
+        int span = joinTrace.start("token");
+        callControl.submit(REQUEST_TOKEN, () -> {
+            String token = tokenCache.get(TOKEN_KEY, CallForegroundService::mintToken);
+            if (token.isEmpty()) {
+                throw new IOException("Token为空");
+            }
+            return token;
+        }, token -> {
+            joinTrace.end(span);
+            currentToken = token;
+            onSuccess.run();
+            Toast.makeText(CallForegroundService.this, "Token获取成功", Toast.LENGTH_SHORT).show();
+        }, e -> {
+            joinTrace.end(span);
+            e.printStackTrace();
+            Toast.makeText(CallForegroundService.this, "Token获取异常：" + e.getMessage(), Toast.LENGTH_LONG).show();
+        }, () -> joinTrace.end(span));
+    }
+
+    // 签发新 Token，失败返回空串（与 RtcTokenBuilder2 约定一致，空串不会进入缓存）
+    private static String mintToken() {
+        if (!TOKEN_SERVER_URL.isEmpty()) {
+            try {
+                return requestToken(TOKEN_SERVER_URL);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return "";
+            }
+        }
+        return new RtcTokenBuilder2().buildTokenWithUid(
+                AGORA_APP_ID,
+                "b90fc32735af48019f1a4392c12aee16",
+                CHANNEL_NAME,
+                LOCAL_UID,
+                RtcTokenBuilder2.Role.ROLE_PUBLISHER,
+                TOKEN_EXPIRE,
+                TOKEN_EXPIRE
+        );
+    }
+
+    // 请求 Token 服务：POST {"uid": LOCAL_UID}，返回纯文本 Token
+    private static String requestToken(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(5000);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(("{\"uid\": " + LOCAL_UID + "}").getBytes(StandardCharsets.UTF_8));
+            }
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + connection.getResponseCode());
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                byte[] buf = new byte[512];
+                int len;
+                while ((len = in.read(buf)) > 0) {
+                    body.write(buf, 0, len);
+                }
+                String token = new String(body.toByteArray(), StandardCharsets.UTF_8).trim();
+                if (token.isEmpty()) {
+                    throw new IOException("empty token");
+                }
+                return token;
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // Token续期：调度线程上强制签发新 Token（跳过缓存中即将过期的旧 Token），回到主线程交给引擎
+    private final TokenRefreshScheduler.Callback tokenRefreshCallback = new TokenRefreshScheduler.Callback() {
+        @Override
+        public String mintToken() {
+            tokenCache.invalidate(TOKEN_KEY);
+            return tokenCache.get(TOKEN_KEY, CallForegroundService::mintToken);
+        }
+
+        @Override
+        public void onTokenRenewed(String token) {
+            mainHandler.post(() -> {
+                currentToken = token;
+                if (mRtcEngine != null) {
+                    mRtcEngine.renewToken(token);
+                    Toast.makeText(CallForegroundService.this, "Token续期成功", Toast.LENGTH_SHORT).show();
+                }
+            });
+        }
+    };
+
+    // 开启通话音视频：首次通话启用音视频模块，之后只恢复采集、发布和订阅
+    private void startCallMedia() {
+        int span = callTrace.start("media.enable");
+        mRtcEngine.enableVideo();
+        mRtcEngine.enableAudio();
+        mRtcEngine.enableLocalVideo(true);
+        mRtcEngine.enableLocalAudio(true);
+        mRtcEngine.muteLocalVideoStream(false);
+        mRtcEngine.muteLocalAudioStream(false);
+        mRtcEngine.muteAllRemoteVideoStreams(false);
+        mRtcEngine.muteAllRemoteAudioStreams(false);
+        mRtcEngine.setEnableSpeakerphone(true);
+        // 多人通话时靠 onActiveSpeaker 决定谁订阅大流
+        mRtcEngine.enableAudioVolumeIndication(500, 3, false);
+        callTrace.end(span);
+    }
+
+    // 回到监听状态：停止本地采集和发布、停止订阅远端，留在频道内
+    private void stopCallMedia() {
+        mRtcEngine.muteLocalVideoStream(true);
+        mRtcEngine.muteLocalAudioStream(true);
+        mRtcEngine.enableLocalVideo(false);
+        mRtcEngine.enableLocalAudio(false);
+        mRtcEngine.muteAllRemoteVideoStreams(true);
+        mRtcEngine.muteAllRemoteAudioStreams(true);
+    }
+
+    // 挂断逻辑：不离开频道，只停止本地音视频并解绑画面，下一次通话可立即开始
+    @Override
+    public void hangup() {
+        if (!callState.inCall()) {
+            return;
+        }
+        endCall();
+
+        // 兜底：此前未能入会（如 Token 获取失败）时重新走入会流程
+        if (!isJoined) {
+            try {
+                if (mRtcEngine == null) {
+                    initAgoraEngine();
+                    setupVideoConfig();
+                }
+                joinTrace.begin("hangup");
+                requestTokenForJoin();
+            } catch (Exception e) {
+                e.printStackTrace();
+                Toast.makeText(this, "重置失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        }
+
+        Toast.makeText(this, "已挂断通话，可重新接听/呼叫", Toast.LENGTH_SHORT).show();
+    }
+
+    // 结束通话：经 TEARING_DOWN 停止音视频、解绑画面，仍在频道内时回到监听，否则回到未入会
+    private void endCall() {
+        if (!moveTo(CallStateMachine.State.TEARING_DOWN)) {
+            return;
+        }
+
+        if (mRtcEngine != null) {
+            stopCallMedia();
+        }
+        clearParticipants();
+        rosterAdapter.clearSelection();
+        moveTo(isJoined ? CallStateMachine.State.LISTENING : CallStateMachine.State.IDLE);
+    }
+
+    // 声网回调
+    private final IRtcEngineEventHandler mRtcEventHandler = new IRtcEngineEventHandler() {
+        @Override
+        public void onJoinChannelSuccess(String channel, int uid, int elapsed) {
+            joinTrace.end(joinSpan);
+            String waterfall = joinTrace.finish();
+            if (waterfall != null) {
+                Log.i(TAG, waterfall + "(sdk join " + elapsed + " ms)\n" + joinTrace.summary());
+            }
+            isJoined = true;
+            mainHandler.post(() -> {
+                // 按当前 Token 的过期时间安排主动续期（currentToken 只在主线程读写）
+                tokenRefreshScheduler.track(currentToken);
+                moveTo(CallStateMachine.State.LISTENING);
+                Toast.makeText(CallForegroundService.this, "已加入频道", Toast.LENGTH_SHORT).show();
+            });
+        }
+
+        @Override
+        public void onUserJoined(int uid, int elapsed) {
+            // 新增用户到列表
+            if (uid != LOCAL_UID && channelRoster.add(uid)) {
+                rosterBatcher.join(uid, SystemClock.elapsedRealtime());
+            }
+
+            // 被动来电：是否振铃由主线程上的状态机决定，回调线程不读通话状态
+            mainHandler.post(() -> onRemoteAvailable(uid));
+        }
+
+        // 挂断后双方都留在频道内：对方开始发布音频表示呼叫或接听，停止发布表示挂断
+        @Override
+        public void onUserMuteAudio(int uid, boolean muted) {
+            setPublishing(audioPublishers, uid, !muted);
+            rosterBatcher.publishing(uid, RosterMember.PUBLISH_AUDIO, !muted);
+            if (muted) {
+                mainHandler.post(() -> onRemoteGone(uid, "对方已挂断"));
+            } else {
+                mainHandler.post(() -> onRemoteAvailable(uid));
+            }
+        }
+
+        @Override
+        public void onUserMuteVideo(int uid, boolean muted) {
+            setPublishing(videoPublishers, uid, !muted);
+            rosterBatcher.publishing(uid, RosterMember.PUBLISH_VIDEO, !muted);
+        }
+
+        // 多人通话中说话人变化：说话人切大流，其余保持小流
+        @Override
+        public void onActiveSpeaker(int uid) {
+            mainHandler.post(() -> {
+                if (callState.inCall() && listener != null) {
+                    listener.onActiveSpeaker(uid);
+                }
+            });
+        }
+
+        @Override
+        public void onFirstRemoteVideoFrame(int uid, int width, int height, int elapsed) {
+            mainHandler.post(() -> onRemoteFirstFrame(uid));
+        }
+
+        // 每 2 秒回调一次，uid 为 0 表示本地用户
+        @Override
+        public void onNetworkQuality(int uid, int txQuality, int rxQuality) {
+            if (uid != 0) {
+                rosterBatcher.networkQuality(uid, txQuality, rxQuality);
+            } else {
+                feedEncoderLadder(() -> encoderLadder.onNetworkQuality(txQuality));
+            }
+        }
+
+        @Override
+        public void onLocalVideoStats(Constants.VideoSourceType source, LocalVideoStats stats) {
+            if (source == Constants.VideoSourceType.VIDEO_SOURCE_CAMERA_PRIMARY) {
+                int sentBitrate = stats.sentBitrate, targetBitrate = stats.targetBitrate;
+                int encoderFps = stats.encoderOutputFrameRate, targetFps = stats.targetFrameRate;
+                feedEncoderLadder(() -> encoderLadder.onLocalVideoStats(sentBitrate, targetBitrate, encoderFps, targetFps));
+            }
+        }
+
+        // 每 2 秒一次，驱动编码档位评估
+        @Override
+        public void onRtcStats(RtcStats stats) {
+            int cpu = (int) stats.cpuTotalUsage, txLoss = stats.txPacketLossRate;
+            feedEncoderLadder(() -> encoderLadder.onRtcStats(cpu, txLoss));
+            telemetry.record(CallTelemetry.TX_KBPS, stats.txKBitRate);
+            telemetry.record(CallTelemetry.RX_KBPS, stats.rxKBitRate);
+            telemetry.record(CallTelemetry.TX_LOSS, stats.txPacketLossRate);
+            telemetry.record(CallTelemetry.RX_LOSS, stats.rxPacketLossRate);
+            telemetry.record(CallTelemetry.RTT_MS, stats.lastmileDelay);
+            telemetry.record(CallTelemetry.CPU, (int) stats.cpuTotalUsage);
+        }
+
+        // 每位远端每 2 秒一次，多人通话时所有远端的样本合并统计
+        @Override
+        public void onRemoteVideoStats(RemoteVideoStats stats) {
+            telemetry.record(CallTelemetry.REMOTE_FPS, stats.rendererOutputFrameRate);
+            telemetry.record(CallTelemetry.REMOTE_VIDEO_LOSS, stats.packetLossRate);
+            telemetry.record(CallTelemetry.REMOTE_FREEZE, stats.frozenRate);
+        }
+
+        @Override
+        public void onRemoteAudioStats(RemoteAudioStats stats) {
+            telemetry.record(CallTelemetry.AUDIO_JITTER_MS, stats.jitterBufferDelay);
+            telemetry.record(CallTelemetry.AUDIO_LOSS, stats.audioLossRate);
+        }
+
+        @Override
+        public void onUserOffline(int uid, int reason) {
+            // 移除离线用户
+            audioPublishers.remove(uid);
+            videoPublishers.remove(uid);
+            if (channelRoster.remove(uid)) {
+                rosterBatcher.leave(uid);
+            }
+
+            // 如果是当前来电/通话对象离线，结束并重置
+            String tip = reason == Constants.USER_OFFLINE_QUIT ? "对方已挂断" : "对方网络断开";
+            mainHandler.post(() -> onRemoteGone(uid, tip));
+        }
+
+        @Override
+        public void onLeaveChannel(RtcStats stats) {
+            isJoined = false;
+            tokenRefreshScheduler.cancel();
+            channelRoster.clear();
+            audioPublishers.clear();
+            videoPublishers.clear();
+            rosterBatcher.clear();
+            mainHandler.post(() -> {
+                onChannelLeft();
+                Toast.makeText(CallForegroundService.this, "已离开频道", Toast.LENGTH_SHORT).show();
+            });
+        }
+
+        // Token即将过期：正常情况下主动续期已完成，收到说明计划落后，立即续期
+        @Override
+        public void onTokenPrivilegeWillExpire(String token) {
+            super.onTokenPrivilegeWillExpire(token);
+            mainHandler.post(() -> Toast.makeText(CallForegroundService.this, "Token即将过期，正在续期...", Toast.LENGTH_SHORT).show());
+            tokenRefreshScheduler.refreshNow();
+        }
+
+        // Token已过期重新获取（兜底，主动续期正常时不会触发），与入会流程一样在主线程处理
+        @Override
+        public void onRequestToken() {
+            super.onRequestToken();
+            mainHandler.post(() -> {
+                Toast.makeText(CallForegroundService.this, "Token已过期，重新加入频道...", Toast.LENGTH_SHORT).show();
+                joinTrace.begin("token-expired");
+                joinGate.clear(ReadinessGate.TOKEN);
+                getTokenFromServer(() -> {
+                    if (mRtcEngine != null) {
+                        mRtcEngine.leaveChannel();
+                        joinGate.signal(ReadinessGate.TOKEN);
+                    }
+                });
+            });
+        }
+    };
+
+    private static void setPublishing(ChannelRoster publishers, int uid, boolean publishing) {
+        if (publishing) {
+            publishers.add(uid);
+        } else {
+            publishers.remove(uid);
+        }
+    }
+
     @Override
     public void onDestroy() {
+        listener = null;
+        // 先停掉所有会回调到服务的来源，再离开频道、销毁引擎：
+        // 停止主动续期，关闭后台线程（取消未完成的请求和 Token 提前续签），清掉待执行的主线程任务
+        if (tokenRefreshScheduler != null) {
+            tokenRefreshScheduler.cancel();
+        }
+        if (callControl != null) {
+            callControl.shutdown();
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+        if (rosterBatcher != null) {
+            rosterBatcher.cancel();
+        }
+        stopRinging();
+        // 销毁引擎：先解除回调，离开频道时不再投递 onLeaveChannel 等事件
+        if (mRtcEngine != null) {
+            mRtcEngine.removeHandler(mRtcEventHandler);
+            mRtcEngine.leaveChannel();
+            RtcEngine.destroy();
+            mRtcEngine = null;
+        }
         super.onDestroy();
         stopForeground(STOP_FOREGROUND_REMOVE); // 停止前台服务，移除通知
     }
-}
\ No newline at end of file
+}
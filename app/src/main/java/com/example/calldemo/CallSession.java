@@ -0,0 +1,55 @@
+package com.example.calldemo;
+
+import io.agora.rtc2.RtcEngine;
+
+/**
+ * 通话会话：由 {@link CallForegroundService} 持有引擎、频道成员、Token 续期和通话状态，
+ * 界面绑定服务后通过该接口发起操作、接收状态变化，自身只负责画面和按钮。
+ * <p>
+ * 所有方法和回调都在主线程。界面重建（旋转、从后台回来）时重新绑定即可，引擎和频道都不会重建。
+ */
+interface CallSession {
+    interface Listener {
+        // 通话状态变化；绑定时会先以 from == to 回放一次当前状态
+        void onCallStateChanged(CallStateMachine.State from, CallStateMachine.State to, int remoteUid);
+
+        // 通话（或预热）中需要显示画面的远端增删；绑定时回放当前所有远端
+        void onParticipantAdded(int uid);
+
+        void onParticipantRemoved(int uid);
+
+        void onActiveSpeaker(int uid);
+
+        // 预热开始/结束：开始时应显示并绑定本地预览
+        void onPrewarm(boolean warm);
+
+        // 选中的用户变化，canCall 表示可以发起呼叫
+        void onSelectionChanged(boolean canCall);
+    }
+
+    // 用于绑定本地预览和远端画面（setupLocalVideo / setupRemoteVideo），不要在界面里销毁
+    RtcEngine engine();
+
+    // 频道内用户列表，界面销毁时需 setAdapter(null) 解除
+    RosterAdapter roster();
+
+    // 通话链路耗时追踪，界面记录预览等阶段
+    SpanTracer callTrace();
+
+    CallStateMachine.State state();
+
+    // 呼叫中、通话中或已预热：本地预览应当运行
+    boolean isMediaActive();
+
+    // 同一时刻只有一个界面；传 null 解除，解除时会关闭预热
+    void setListener(Listener listener);
+
+    // 呼叫用户列表中选中的用户
+    void callSelected();
+
+    void answer();
+
+    void reject();
+
+    void hangup();
+}
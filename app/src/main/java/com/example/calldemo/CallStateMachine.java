@@ -0,0 +1,127 @@
+package com.example.calldemo;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 通话状态机：IDLE（未入会）→ LISTENING（在频道内等待来电）→ RINGING / DIALING → IN_CALL → TEARING_DOWN → LISTENING。
+ * <p>
+ * 只能在创建它的线程（主线程）上访问，SDK 回调要先投递到主线程再读写状态。
+ * 每次迁移都是“校验当前状态 + 切换”一步完成，非法迁移返回 false 且状态不变，
+ * 不会再出现多个标记只改了一半、回调线程读到旧值的情况（例如主动呼叫时被当成来电振铃）。
+ * <p>
+ * 记录进入每个状态的时间（毫秒，由 clock 提供），用于统计振铃到接听、接听到首帧等耗时。
+ */
+final class CallStateMachine {
+    enum State {
+        IDLE, LISTENING, RINGING, DIALING, IN_CALL, TEARING_DOWN
+    }
+
+    // 按 ordinal 索引，每个状态允许迁移到的目标状态位
+    private static final int[] ALLOWED = new int[State.values().length];
+
+    static {
+        allow(State.IDLE, State.LISTENING);
+        allow(State.LISTENING, State.IDLE, State.RINGING, State.DIALING);
+        allow(State.RINGING, State.IDLE, State.LISTENING, State.IN_CALL);
+        allow(State.DIALING, State.IN_CALL, State.TEARING_DOWN);
+        allow(State.IN_CALL, State.TEARING_DOWN);
+        allow(State.TEARING_DOWN, State.IDLE, State.LISTENING);
+    }
+
+    private static void allow(State from, State... to) {
+        for (State state : to) {
+            ALLOWED[from.ordinal()] |= 1 << state.ordinal();
+        }
+    }
+
+    private final Thread owner = Thread.currentThread();
+    private final LongSupplier clock;
+    private final long[] enteredAtMs = new long[State.values().length];
+    private State state = State.IDLE;
+    private State previous = State.IDLE;
+    private int remoteUid = -1;
+
+    CallStateMachine(LongSupplier clock) {
+        this.clock = clock;
+        enteredAtMs[State.IDLE.ordinal()] = clock.getAsLong();
+    }
+
+    State state() {
+        checkThread();
+        return state;
+    }
+
+    // 进入当前状态之前的状态，例如 IN_CALL 由 RINGING（接听）还是 DIALING（主动呼叫）而来
+    State previous() {
+        checkThread();
+        return previous;
+    }
+
+    boolean is(State expected) {
+        checkThread();
+        return state == expected;
+    }
+
+    // 已开启音视频：呼叫中或通话中
+    boolean inCall() {
+        checkThread();
+        return state == State.DIALING || state == State.IN_CALL;
+    }
+
+    // 当前来电/通话对象，LISTENING、IDLE 下为 -1
+    int remoteUid() {
+        checkThread();
+        return remoteUid;
+    }
+
+    // 最近一次进入该状态的时间，从未进入时为 0
+    long enteredAt(State target) {
+        checkThread();
+        return enteredAtMs[target.ordinal()];
+    }
+
+    // 距最近一次进入该状态经过的毫秒数
+    long elapsedSince(State target) {
+        checkThread();
+        return clock.getAsLong() - enteredAtMs[target.ordinal()];
+    }
+
+    // 迁移并保留当前通话对象
+    boolean transition(State to) {
+        return transition(to, remoteUid);
+    }
+
+    /**
+     * @return false 表示当前状态不允许迁移到 to，状态和通话对象都不变
+     */
+    boolean transition(State to, int uid) {
+        checkThread();
+        if ((ALLOWED[state.ordinal()] & (1 << to.ordinal())) == 0) {
+            return false;
+        }
+        previous = state;
+        state = to;
+        remoteUid = to == State.IDLE || to == State.LISTENING ? -1 : uid;
+        enteredAtMs[to.ordinal()] = clock.getAsLong();
+        return true;
+    }
+
+    /**
+     * 多人通话中当前通话对象离开、还有其他参与者时，换一位作为通话对象，状态不变。
+     *
+     * @return false 表示不在呼叫中/通话中
+     */
+    boolean retarget(int uid) {
+        if (!inCall()) {
+            return false;
+        }
+        remoteUid = uid;
+        return true;
+    }
+
+    private void checkThread() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("通话状态只能在主线程访问: " + Thread.currentThread().getName());
+        }
+    }
+}
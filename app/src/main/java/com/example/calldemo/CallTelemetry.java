@@ -0,0 +1,168 @@
+package com.example.calldemo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 通话质量采集：码率、丢包、时延、CPU、远端帧率/卡顿、音频抖动、首帧耗时等指标，
+ * 每项一个固定大小的 int 环形缓冲区，SDK 回调线程上记录样本时不分配对象，写满后覆盖最旧的样本。
+ * <p>
+ * 通话开始时 {@link #start(long, long)}，结束时 {@link #stop(String, long)} 把本次样本复制成 {@link Report}，
+ * 分位数计算和写文件都在 Report 上、放到后台线程进行，不占用回调线程和主线程。
+ */
+final class CallTelemetry {
+    static final int TX_KBPS = 0;
+    static final int RX_KBPS = 1;
+    static final int TX_LOSS = 2;
+    static final int RX_LOSS = 3;
+    static final int RTT_MS = 4;
+    static final int CPU = 5;
+    static final int REMOTE_FPS = 6;
+    static final int REMOTE_VIDEO_LOSS = 7;
+    static final int REMOTE_FREEZE = 8;
+    static final int AUDIO_JITTER_MS = 9;
+    static final int AUDIO_LOSS = 10;
+    static final int FIRST_FRAME_MS = 11;
+
+    private static final String[] NAMES = {
+            "tx_kbps", "rx_kbps", "tx_loss_pct", "rx_loss_pct", "rtt_ms", "cpu_pct",
+            "remote_fps", "remote_video_loss_pct", "remote_freeze_pct", "audio_jitter_ms", "audio_loss_pct",
+            "first_frame_ms",
+    };
+
+    // 单个文件超过该大小时轮转为 .1，只保留一份旧文件
+    private static final long MAX_FILE_BYTES = 1 << 20;
+
+    // 由 this 保护
+    private final int[][] rings;
+    private final int[] written;
+    private final int capacityMask;
+    private long startedAtMs;
+    private long startedAtElapsedMs;
+    private volatile boolean recording;
+
+    /**
+     * @param capacity 每项指标保留的样本数，向上取 2 的幂；2 秒一次的统计 2048 个约覆盖一小时
+     */
+    CallTelemetry(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        rings = new int[NAMES.length][size];
+        written = new int[NAMES.length];
+        capacityMask = size - 1;
+    }
+
+    // 开始新的一次通话，丢弃上一次未取走的样本
+    synchronized void start(long wallClockMs, long elapsedMs) {
+        Arrays.fill(written, 0);
+        startedAtMs = wallClockMs;
+        startedAtElapsedMs = elapsedMs;
+        recording = true;
+    }
+
+    // 任意线程；未在通话中时直接忽略
+    void record(int metric, int value) {
+        if (!recording) {
+            return;
+        }
+        synchronized (this) {
+            rings[metric][written[metric]++ & capacityMask] = value;
+        }
+    }
+
+    /**
+     * 停止记录并取出本次通话的样本；未在记录时返回 null。
+     */
+    synchronized Report stop(String label, long elapsedMs) {
+        if (!recording) {
+            return null;
+        }
+        recording = false;
+        int[][] samples = new int[NAMES.length][];
+        for (int i = 0; i < NAMES.length; i++) {
+            int count = Math.min(written[i], capacityMask + 1);
+            samples[i] = Arrays.copyOf(rings[i], count);
+        }
+        return new Report(label, startedAtMs, elapsedMs - startedAtElapsedMs, samples);
+    }
+
+    static final class Report {
+        final String label;
+        final long startedAtMs;
+        final long durationMs;
+        // 按指标下标，每项样本顺序无意义
+        private final int[][] samples;
+        private boolean sorted;
+
+        private Report(String label, long startedAtMs, long durationMs, int[][] samples) {
+            this.label = label;
+            this.startedAtMs = startedAtMs;
+            this.durationMs = durationMs;
+            this.samples = samples;
+        }
+
+        int count(int metric) {
+            return samples[metric].length;
+        }
+
+        /**
+         * 最近秩法分位数，没有样本时为 -1。
+         *
+         * @param percent 0~100
+         */
+        int percentile(int metric, int percent) {
+            sort();
+            int[] values = samples[metric];
+            if (values.length == 0) {
+                return -1;
+            }
+            int rank = (int) Math.ceil(percent / 100.0 * values.length);
+            return values[Math.max(rank, 1) - 1];
+        }
+
+        // 一行一项指标：名称 样本数 p50 p95 p99 max，没有样本的指标不输出
+        String format() {
+            StringBuilder out = new StringBuilder(64 * NAMES.length);
+            out.append("call ").append(label)
+                    .append(" start=").append(startedAtMs)
+                    .append(" duration_ms=").append(durationMs).append('\n');
+            for (int i = 0; i < NAMES.length; i++) {
+                if (count(i) == 0) {
+                    continue;
+                }
+                out.append("  ").append(NAMES[i])
+                        .append(" n=").append(count(i))
+                        .append(" p50=").append(percentile(i, 50))
+                        .append(" p95=").append(percentile(i, 95))
+                        .append(" p99=").append(percentile(i, 99))
+                        .append(" max=").append(percentile(i, 100)).append('\n');
+            }
+            return out.toString();
+        }
+
+        // 追加到文件末尾，文件过大时先轮转
+        void appendTo(File file) throws IOException {
+            if (file.length() > MAX_FILE_BYTES) {
+                File old = new File(file.getPath() + ".1");
+                if (old.exists() && !old.delete() || !file.renameTo(old)) {
+                    throw new IOException("rotate failed: " + file);
+                }
+            }
+            try (OutputStream out = new FileOutputStream(file, true)) {
+                out.write(format().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private void sort() {
+            if (!sorted) {
+                for (int[] values : samples) {
+                    Arrays.sort(values);
+                }
+                sorted = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.calldemo;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 频道成员表：升序 int 数组的写时复制快照，每次变更 epoch 加一。
+ * <p>
+ * SDK 回调线程通过 CAS 发布新快照，不加锁；任意线程调用 {@link #snapshot()} 拿到的都是某一时刻完整一致、
+ * 之后不会再变的成员集合，可以放心遍历。频道内人数通常只有几十，复制成本远低于装箱和加锁。
+ */
+final class ChannelRoster {
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new int[0], 0);
+
+        // 升序，只读
+        private final int[] uids;
+        final long epoch;
+
+        private Snapshot(int[] uids, long epoch) {
+            this.uids = uids;
+            this.epoch = epoch;
+        }
+
+        int size() {
+            return uids.length;
+        }
+
+        int get(int index) {
+            return uids[index];
+        }
+
+        boolean contains(int uid) {
+            return Arrays.binarySearch(uids, uid) >= 0;
+        }
+
+        int[] toArray() {
+            return uids.clone();
+        }
+    }
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+
+    /**
+     * @return false 表示已在频道内，快照不变
+     */
+    boolean add(int uid) {
+        while (true) {
+            Snapshot prev = current.get();
+            int index = Arrays.binarySearch(prev.uids, uid);
+            if (index >= 0) {
+                return false;
+            }
+            int position = -index - 1;
+            int[] next = new int[prev.uids.length + 1];
+            System.arraycopy(prev.uids, 0, next, 0, position);
+            next[position] = uid;
+            System.arraycopy(prev.uids, position, next, position + 1, prev.uids.length - position);
+            if (current.compareAndSet(prev, new Snapshot(next, prev.epoch + 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return false 表示不在频道内，快照不变
+     */
+    boolean remove(int uid) {
+        while (true) {
+            Snapshot prev = current.get();
+            int position = Arrays.binarySearch(prev.uids, uid);
+            if (position < 0) {
+                return false;
+            }
+            int[] next = new int[prev.uids.length - 1];
+            System.arraycopy(prev.uids, 0, next, 0, position);
+            System.arraycopy(prev.uids, position + 1, next, position, next.length - position);
+            if (current.compareAndSet(prev, new Snapshot(next, prev.epoch + 1))) {
+                return true;
+            }
+        }
+    }
+
+    void clear() {
+        while (true) {
+            Snapshot prev = current.get();
+            if (prev.uids.length == 0 || current.compareAndSet(prev, new Snapshot(Snapshot.EMPTY.uids, prev.epoch + 1))) {
+                return;
+            }
+        }
+    }
+
+    boolean contains(int uid) {
+        return current.get().contains(uid);
+    }
+
+    Snapshot snapshot() {
+        return current.get();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.calldemo;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 自适应编码档位：根据上行网络质量、丢包、CPU 和编码器实际输出在若干档编码配置之间升降。
+ * <p>
+ * 每次 {@link #onRtcStats(int, int)}（约 2 秒一次）评估一次：连续 {@link #DOWN_SAMPLES} 次变差才降一档，
+ * 连续 {@link #UP_SAMPLES} 次良好且距上次降档超过 {@link #UP_COOLDOWN_MS} 才升一档，避免在临界状态来回抖动。
+ * 本地没有在编码视频（未在通话中）时不评估；通话结束时 {@link #reset()} 回到初始档，下一次通话不沿用上一次的样本。
+ * <p>
+ * 只在主线程访问（与通话状态机同一线程，SDK 统计回调先投递过来）；档位变化通过 {@link Listener} 在同一线程通知，
+ * 附带触发原因便于调参。
+ */
+final class EncoderLadder {
+    interface Listener {
+        // 0 为最低档；reason 说明触发条件
+        void onStepChanged(int from, int to, String reason);
+    }
+
+    static final int DOWN_SAMPLES = 2;
+    static final int UP_SAMPLES = 5;
+    static final long UP_COOLDOWN_MS = 20_000;
+
+    // 与 Constants.QUALITY_* 一致
+    private static final int QUALITY_GOOD = 2;
+    private static final int QUALITY_BAD = 4;
+
+    private static final int LOSS_DOWN_PERCENT = 10;
+    private static final int LOSS_UP_PERCENT = 2;
+    private static final int CPU_DOWN_PERCENT = 85;
+    private static final int CPU_UP_PERCENT = 60;
+
+    private final int maxStep;
+    private final int initialStep;
+    private final Listener listener;
+    private final LongSupplier clock;
+    private int step;
+    private long lastDownMs = Long.MIN_VALUE / 2;
+
+    // 最近一次的网络质量与本地视频统计
+    private int txQuality;
+    private int sentBitrate;
+    private int targetBitrate;
+    private int encoderFps;
+    private int targetFps;
+
+    private int downStreak;
+    private int upStreak;
+
+    EncoderLadder(int steps, int initialStep, Listener listener, LongSupplier clock) {
+        this.maxStep = steps - 1;
+        this.initialStep = initialStep;
+        this.step = initialStep;
+        this.listener = listener;
+        this.clock = clock;
+    }
+
+    int step() {
+        return step;
+    }
+
+    // 通话结束：清空样本、连续计数和降档冷却，档位不在初始档时经 Listener 切回
+    void reset() {
+        txQuality = 0;
+        sentBitrate = 0;
+        targetBitrate = 0;
+        encoderFps = 0;
+        targetFps = 0;
+        downStreak = 0;
+        upStreak = 0;
+        lastDownMs = Long.MIN_VALUE / 2;
+        if (step != initialStep) {
+            change(initialStep, "reset");
+        }
+    }
+
+    // onNetworkQuality 中 uid 为 0 的本地上行质量
+    void onNetworkQuality(int txQuality) {
+        this.txQuality = txQuality;
+    }
+
+    // onLocalVideoStats：码率单位 Kbps
+    void onLocalVideoStats(int sentBitrate, int targetBitrate, int encoderFps, int targetFps) {
+        this.sentBitrate = sentBitrate;
+        this.targetBitrate = targetBitrate;
+        this.encoderFps = encoderFps;
+        this.targetFps = targetFps;
+    }
+
+    // onRtcStats：触发一次评估
+    void onRtcStats(int cpuTotalPercent, int txLossPercent) {
+        if (targetBitrate <= 0 || targetFps <= 0) {
+            downStreak = 0;
+            upStreak = 0;
+            return;
+        }
+
+        // 编码器跟不上目标帧率或发送码率明显低于目标，说明 CPU 或带宽已到上限
+        boolean fpsStarved = encoderFps * 10 < targetFps * 7;
+        boolean bitrateStarved = sentBitrate * 10 < targetBitrate * 6;
+        boolean down = txQuality >= QUALITY_BAD || txLossPercent >= LOSS_DOWN_PERCENT
+                || cpuTotalPercent >= CPU_DOWN_PERCENT || fpsStarved || bitrateStarved;
+        boolean up = !down && txQuality != 0 && txQuality <= QUALITY_GOOD && txLossPercent <= LOSS_UP_PERCENT
+                && cpuTotalPercent < CPU_UP_PERCENT && encoderFps * 10 >= targetFps * 9;
+
+        if (down) {
+            upStreak = 0;
+            if (++downStreak >= DOWN_SAMPLES && step > 0) {
+                downStreak = 0;
+                lastDownMs = clock.getAsLong();
+                change(step - 1, "down: txQuality=" + txQuality + " loss=" + txLossPercent + "% cpu=" + cpuTotalPercent
+                        + "% fps=" + encoderFps + "/" + targetFps + " kbps=" + sentBitrate + "/" + targetBitrate);
+            }
+        } else if (up) {
+            downStreak = 0;
+            if (++upStreak >= UP_SAMPLES && step < maxStep && clock.getAsLong() - lastDownMs >= UP_COOLDOWN_MS) {
+                upStreak = 0;
+                change(step + 1, "up: txQuality=" + txQuality + " loss=" + txLossPercent + "% cpu=" + cpuTotalPercent
+                        + "% fps=" + encoderFps + "/" + targetFps);
+            }
+        } else {
+            // 介于两者之间：保持当前档位
+            downStreak = 0;
+            upStreak = 0;
+        }
+    }
+
+    private void change(int next, String reason) {
+        int previous = step;
+        step = next;
+        listener.onStepChanged(previous, next, reason);
+    }
+}
@@ -1,46 +1,35 @@
 package com.example.calldemo;
 
 import android.Manifest;
-import android.content.Context;
+import android.content.ComponentName;
 import android.content.Intent;
+import android.content.ServiceConnection;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
-import android.os.PowerManager;
-import android.os.VibrationEffect;
-import android.os.Vibrator;
+import android.os.IBinder;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
 import android.widget.Button;
+import android.widget.GridLayout;
 import android.widget.LinearLayout;
-import android.widget.ListView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.SimpleItemAnimator;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
-import io.agora.media.RtcTokenBuilder2;
-import io.agora.rtc2.Constants;
-import io.agora.rtc2.IRtcEngineEventHandler;
 import io.agora.rtc2.RtcEngine;
 import io.agora.rtc2.video.VideoCanvas;
-import io.agora.rtc2.video.VideoEncoderConfiguration;
-
-public class MainActivity extends AppCompatActivity implements View.OnClickListener, SurfaceHolder.Callback {
 
-    // 声网核心配置
-    private static final String AGORA_APP_ID = "585ceb26ea044e649a7a39304d323dc7";
-    private static final String CHANNEL_NAME = "HoneyFamily";
-    private static final int LOCAL_UID = 1001;
+/**
+ * 通话界面：引擎、频道和通话状态都在 {@link CallForegroundService} 里，这里只绑定服务、
+ * 按 {@link CallSession.Listener} 回调渲染画面和按钮，并把按钮操作转给会话。
+ */
+public class MainActivity extends AppCompatActivity
+        implements View.OnClickListener, SurfaceHolder.Callback, CallSession.Listener {
 
     // 权限请求码
     private static final int PERMISSION_REQUEST_CODE = 101;
@@ -53,28 +42,46 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
             Manifest.permission.DISABLE_KEYGUARD // 新增锁屏权限
     };
 
-    private String currentToken = ""; // 保存当前有效Token
-
     // UI组件
-    private Vibrator vibrator;
-    private RtcEngine mRtcEngine;
-    private SurfaceView svLocal, svRemote;
+    private SurfaceView svLocal;
+    private GridLayout glRemote;
+    private RemoteVideoGrid remoteGrid; // 远端画面网格，多人通话时每人一格
     private Button btnAnswer, btnReject, btnHangup, btnCallSelected;
-    private ListView lvUserList;
+    private RecyclerView rvUserList;
     private LinearLayout llUserList;
-    private ArrayAdapter<String> userListAdapter;
-    private Set<Integer> channelUserUids = new HashSet<>(); // 频道内用户UID集合
-    private int selectedCallUid = -1; // 选中要呼叫的用户UID
-
-    // 状态标记
-    private int mRemoteUid = -1;
-    private PowerManager.WakeLock wakeLock;
-    private PowerManager.WakeLock screenWakeLock; // 新增屏幕唤醒锁
+
+    // 通话会话：绑定服务后可用，解绑前为 null 时按钮不响应，仅主线程
+    private CallSession session;
     private Intent foregroundServiceIntent;
-    private boolean isLocalPreviewStarted = false;
-    private boolean isInCall = false; // 是否已建立通话
-    private boolean isRinging = false; // 是否正在振铃
-    private boolean isInitiativeCall = false; // 是否是主动呼叫
+    private boolean isServiceBound = false;
+    private boolean isLocalPreviewStarted = false; // 跟随本地 Surface 的创建/销毁，仅主线程
+
+    private final ServiceConnection sessionConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            CallSession bound = ((CallForegroundService.SessionBinder) service).session();
+            if (bound.engine() == null) {
+                Toast.makeText(MainActivity.this, "初始化失败：引擎未创建", Toast.LENGTH_LONG).show();
+                finish();
+                return;
+            }
+            session = bound;
+            remoteGrid = new RemoteVideoGrid(glRemote, session.engine());
+            rvUserList.setAdapter(session.roster());
+            // 立即回放当前状态：重新打开界面时通话、画面直接恢复
+            session.setListener(MainActivity.this);
+        }
+
+        // 服务所在进程被杀，界面随之失效
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            session = null;
+            remoteGrid = null;
+            isLocalPreviewStarted = false;
+            rvUserList.setAdapter(null);
+            resetUIState();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -87,60 +94,21 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
             return;
         }
 
-        // 2. 初始化震动器
-        vibrator = (Vibrator) getSystemService(VIBRATOR_SERVICE);
-
-        // 3. 初始化唤醒锁（修复锁屏振动）
-        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
-        // 部分唤醒锁：保持CPU运行
-        wakeLock = powerManager.newWakeLock(
-                PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP,
-                "CallDemo::VibrateWakeLock"
-        );
-        // 屏幕唤醒锁：点亮屏幕
-        screenWakeLock = powerManager.newWakeLock(
-                PowerManager.SCREEN_BRIGHT_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP | PowerManager.ON_AFTER_RELEASE,
-                "CallDemo::ScreenWakeLock"
-        );
+        initView();
+        svLocal.getHolder().addCallback(this);
+        // 初始化用户列表（适配器由服务持有，绑定后设置）
+        rvUserList.setLayoutManager(new LinearLayoutManager(this));
+        // 只做增删动画，选中状态变化直接重绑，避免整行淡入淡出
+        ((SimpleItemAnimator) rvUserList.getItemAnimator()).setSupportsChangeAnimations(false);
 
-        // 4. 启动前台服务
+        // 2. 启动并绑定前台服务：服务已在运行（界面重建）时直接复用其中的引擎和频道
         foregroundServiceIntent = new Intent(this, CallForegroundService.class);
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
             startForegroundService(foregroundServiceIntent);
         } else {
             startService(foregroundServiceIntent);
         }
-
-        initView();
-        try {
-            initAgoraEngine();
-            setupVideoConfig();
-            svLocal.getHolder().addCallback(this);
-            // 初始化用户列表适配器
-            initUserListAdapter();
-            // 先获取Token，再加入频道（仅监听）
-            getTokenFromServer(this::joinChannelForListening);
-        } catch (Exception e) {
-            e.printStackTrace();
-            Toast.makeText(this, "初始化失败：" + e.getMessage(), Toast.LENGTH_LONG).show();
-            finish();
-        }
-    }
-
-    // 初始化用户列表适配器
-    private void initUserListAdapter() {
-        List<String> userList = new ArrayList<>();
-        userListAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_single_choice, userList);
-        lvUserList.setAdapter(userListAdapter);
-        lvUserList.setChoiceMode(ListView.CHOICE_MODE_SINGLE);
-        // 选中用户监听
-        lvUserList.setOnItemClickListener((parent, view, position, id) -> {
-            String selectedItem = (String) parent.getItemAtPosition(position);
-            if (selectedItem != null && selectedItem.contains("UID:")) {
-                selectedCallUid = Integer.parseInt(selectedItem.split(":")[1].trim());
-                btnCallSelected.setVisibility(View.VISIBLE);
-            }
-        });
+        isServiceBound = bindService(foregroundServiceIntent, sessionConnection, BIND_AUTO_CREATE);
     }
 
     // 检查权限是否全部授予
@@ -176,12 +144,12 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
     private void initView() {
         svLocal = findViewById(R.id.sv_local);
-        svRemote = findViewById(R.id.sv_remote);
+        glRemote = findViewById(R.id.gl_remote);
         btnAnswer = findViewById(R.id.btn_answer);
         btnReject = findViewById(R.id.btn_reject);
         btnHangup = findViewById(R.id.btn_hangup);
         btnCallSelected = findViewById(R.id.btn_call_selected);
-        lvUserList = findViewById(R.id.lv_user_list);
+        rvUserList = findViewById(R.id.rv_user_list);
         llUserList = findViewById(R.id.ll_user_list);
 
         // 按钮点击事件
@@ -203,398 +171,136 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         btnHangup.setVisibility(View.GONE);
         btnCallSelected.setVisibility(View.GONE);
         svLocal.setVisibility(View.GONE);
-        svRemote.setVisibility(View.GONE);
+        glRemote.setVisibility(View.GONE);
         llUserList.setVisibility(View.VISIBLE); // 始终显示用户列表
-        selectedCallUid = -1;
     }
 
-    private void initAgoraEngine() throws Exception {
-        if (mRtcEngine == null) {
-            mRtcEngine = RtcEngine.create(getApplicationContext(), AGORA_APP_ID, mRtcEventHandler);
-            // 初始化时先关闭音视频
-            mRtcEngine.disableVideo();
-            mRtcEngine.disableAudio();
-            mRtcEngine.setChannelProfile(Constants.CHANNEL_PROFILE_COMMUNICATION);
+    // 通话界面：显示画面和挂断按钮，开启本地预览；远端画面由 onParticipantAdded 绑定
+    private void showCallUI() {
+        svLocal.setVisibility(View.VISIBLE);
+        glRemote.setVisibility(View.VISIBLE);
+        btnAnswer.setVisibility(View.GONE);
+        btnReject.setVisibility(View.GONE);
+        btnHangup.setVisibility(View.VISIBLE);
+        btnCallSelected.setVisibility(View.GONE);
+
+        if (svLocal.getHolder().getSurface().isValid()) {
+            setupLocalVideo();
         }
     }
 
-    // 优化视频编码配置
-    private void setupVideoConfig() {
-        VideoEncoderConfiguration config = new VideoEncoderConfiguration(
-                VideoEncoderConfiguration.VD_640x360,
-                VideoEncoderConfiguration.FRAME_RATE.FRAME_RATE_FPS_15,
-                VideoEncoderConfiguration.STANDARD_BITRATE,
-                VideoEncoderConfiguration.ORIENTATION_MODE.ORIENTATION_MODE_ADAPTIVE
-        );
-        mRtcEngine.setVideoEncoderConfiguration(config);
+    @Override
+    public void onCallStateChanged(CallStateMachine.State from, CallStateMachine.State to, int remoteUid) {
+        switch (to) {
+            case DIALING:
+            case IN_CALL:
+                showCallUI();
+                break;
+            case IDLE:
+            case LISTENING:
+                // 挂断或来电结束：预热也已关闭时停止本地预览
+                resetUIState();
+                if (!session.isMediaActive()) {
+                    releaseLocalVideo();
+                } else {
+                    svLocal.setVisibility(View.VISIBLE);
+                }
+                break;
+            default:
+                // 振铃和挂断中保持当前界面
+                break;
+        }
     }
 
-    // 加入频道仅用于监听来电（不开启音视频）
-    private void joinChannelForListening() {
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            if (currentToken.isEmpty() || mRtcEngine == null) {
-                Toast.makeText(this, "Token为空或引擎未初始化，无法加入频道", Toast.LENGTH_SHORT).show();
-                return;
-            }
-            // 加入频道，但不开启音视频
-            mRtcEngine.joinChannel(currentToken, CHANNEL_NAME, null, LOCAL_UID);
-            Toast.makeText(this, "已进入通话频道，等待来电/可主动呼叫...", Toast.LENGTH_SHORT).show();
-        }, 1000);
+    @Override
+    public void onParticipantAdded(int uid) {
+        remoteGrid.add(uid);
     }
 
-    // 主动呼叫指定用户
-    private void callSelectedUser() {
-        if (selectedCallUid == -1 || selectedCallUid == LOCAL_UID) {
-            Toast.makeText(this, "请选择有效的用户进行呼叫", Toast.LENGTH_SHORT).show();
-            return;
-        }
-        if (isInCall) {
-            Toast.makeText(this, "当前已有通话，请先挂断", Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        isInitiativeCall = true;
-        mRemoteUid = selectedCallUid;
-        // 主动呼叫时直接开启音视频
-        try {
-            mRtcEngine.enableVideo();
-            mRtcEngine.enableAudio();
-            mRtcEngine.setEnableSpeakerphone(true);
-            mRtcEngine.muteLocalVideoStream(false);
-
-            // 显示视频画面，切换按钮状态
-            svLocal.setVisibility(View.VISIBLE);
-            svRemote.setVisibility(View.VISIBLE);
-            btnAnswer.setVisibility(View.GONE);
-            btnReject.setVisibility(View.GONE);
-            btnHangup.setVisibility(View.VISIBLE);
-            btnCallSelected.setVisibility(View.GONE);
-
-            // 初始化本地预览
-            if (svLocal.getHolder().getSurface().isValid()) {
-                setupLocalVideo();
-            }
-
-            // 绑定远程视频
-            setupRemoteVideo(mRemoteUid);
-
-            // 标记通话已建立
-            isInCall = true;
-            Toast.makeText(this, "已呼叫用户 UID：" + mRemoteUid, Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            e.printStackTrace();
-            Toast.makeText(this, "呼叫失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
-            isInitiativeCall = false;
-        }
+    @Override
+    public void onParticipantRemoved(int uid) {
+        remoteGrid.remove(uid);
     }
 
-    // 接听通话
-    private void answerCall() {
-        if (isInCall || mRemoteUid == -1) {
-            return;
-        }
-
-        try {
-            // 1. 停止振铃
-            stopRinging();
-
-            // 2. 开启音视频
-            mRtcEngine.enableVideo();
-            mRtcEngine.enableAudio();
-            mRtcEngine.setEnableSpeakerphone(true);
-            mRtcEngine.muteLocalVideoStream(false);
+    @Override
+    public void onActiveSpeaker(int uid) {
+        remoteGrid.setActiveSpeaker(uid);
+    }
 
-            // 3. 显示视频画面，切换按钮状态
+    // 预热开始时提前启动本地预览，结束且不在通话中时停止
+    @Override
+    public void onPrewarm(boolean warm) {
+        if (warm) {
             svLocal.setVisibility(View.VISIBLE);
-            svRemote.setVisibility(View.VISIBLE);
-            btnAnswer.setVisibility(View.GONE);
-            btnReject.setVisibility(View.GONE);
-            btnHangup.setVisibility(View.VISIBLE);
-            btnCallSelected.setVisibility(View.GONE);
-
-            // 4. 初始化本地预览
             if (svLocal.getHolder().getSurface().isValid()) {
                 setupLocalVideo();
             }
-
-            // 5. 绑定远程视频
-            setupRemoteVideo(mRemoteUid);
-
-            // 6. 标记通话已建立
-            isInCall = true;
-            Toast.makeText(this, "已接听通话（UID：" + mRemoteUid + "）", Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            e.printStackTrace();
-            Toast.makeText(this, "接听失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
-    }
-
-    // 拒绝通话
-    private void rejectCall() {
-        stopRinging();
-        mRemoteUid = -1;
-        Toast.makeText(this, "已拒绝通话", Toast.LENGTH_SHORT).show();
-    }
-
-    // 启动振铃（修复锁屏振动）
-    private void startRinging() {
-        if (isRinging) {
-            return;
-        }
-        isRinging = true;
-
-        // 1. 唤醒屏幕（修复锁屏不振动核心）
-        if (screenWakeLock != null && !screenWakeLock.isHeld()) {
-            screenWakeLock.acquire(30*1000); // 持锁30秒
-        }
-        if (wakeLock != null && !wakeLock.isHeld()) {
-            wakeLock.acquire(30*1000);
-        }
-
-        // 2. 循环振铃
-        if (vibrator != null && vibrator.hasVibrator()) {
-            try {
-                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-                    VibrationEffect effect = VibrationEffect.createWaveform(
-                            new long[]{0, 1000, 2000},
-                            0 // 无限循环
-                    );
-                    vibrator.vibrate(effect);
-                } else {
-                    vibrator.vibrate(new long[]{0, 1000, 2000}, 0);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                Toast.makeText(this, "振动失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        }
-
-        runOnUiThread(() -> Toast.makeText(this, "有来电（UID：" + mRemoteUid + "），请接听/拒绝", Toast.LENGTH_LONG).show());
-    }
-
-    // 停止振铃
-    private void stopRinging() {
-        if (!isRinging) {
-            return;
-        }
-        isRinging = false;
-
-        if (vibrator != null) {
-            vibrator.cancel();
-        }
-        if (wakeLock != null && wakeLock.isHeld()) {
-            wakeLock.release();
-        }
-        if (screenWakeLock != null && screenWakeLock.isHeld()) {
-            screenWakeLock.release();
+        } else if (!session.isMediaActive()) {
+            releaseLocalVideo();
+            svLocal.setVisibility(View.GONE);
         }
     }
 
-    // 从服务端获取Token
-    private void getTokenFromServer(Runnable onSuccess) {
-        new Thread(() -> {
-            try {
-                RtcTokenBuilder2 token = new RtcTokenBuilder2();
-                currentToken = token.buildTokenWithUid(
-                        AGORA_APP_ID,
-                        "b90fc32735af48019f1a4392c12aee16",
-                        CHANNEL_NAME,
-                        LOCAL_UID,
-                        RtcTokenBuilder2.Role.ROLE_PUBLISHER,
-                        36000,
-                        36000
-                );
-
-                runOnUiThread(onSuccess);
-                runOnUiThread(() -> Toast.makeText(MainActivity.this, "Token获取成功", Toast.LENGTH_SHORT).show());
-            } catch (Exception e) {
-                e.printStackTrace();
-                runOnUiThread(() -> Toast.makeText(MainActivity.this, "Token获取异常：" + e.getMessage(), Toast.LENGTH_LONG).show());
-            }
-        }).start();
-    }
-
-    // Token续期方法
-    private void renewToken() {
-        getTokenFromServer(() -> {
-            if (mRtcEngine != null && !currentToken.isEmpty()) {
-                mRtcEngine.renewToken(currentToken);
-                runOnUiThread(() -> Toast.makeText(MainActivity.this, "Token续期成功", Toast.LENGTH_SHORT).show());
-            }
-        });
+    @Override
+    public void onSelectionChanged(boolean canCall) {
+        btnCallSelected.setVisibility(canCall ? View.VISIBLE : View.GONE);
     }
 
     private void setupLocalVideo() {
-        if (mRtcEngine == null || svLocal == null || isLocalPreviewStarted) {
+        if (session == null || svLocal == null || isLocalPreviewStarted) {
             return;
         }
+        RtcEngine engine = session.engine();
 
         VideoCanvas localCanvas = new VideoCanvas(
                 svLocal,
                 VideoCanvas.RENDER_MODE_FIT,
-                LOCAL_UID
+                CallForegroundService.LOCAL_UID
         );
-        mRtcEngine.setupLocalVideo(localCanvas);
+        engine.setupLocalVideo(localCanvas);
 
+        int span = session.callTrace().start("preview");
         try {
-            mRtcEngine.startPreview();
+            engine.startPreview();
+            session.callTrace().end(span);
             isLocalPreviewStarted = true;
         } catch (Exception e) {
             e.printStackTrace();
-            runOnUiThread(() -> Toast.makeText(this, "预览启动失败：" + e.getMessage(), Toast.LENGTH_SHORT).show());
+            Toast.makeText(this, "预览启动失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
         }
     }
 
-    private void setupRemoteVideo(int uid) {
-        mRtcEngine.setupRemoteVideo(new VideoCanvas(svRemote, VideoCanvas.RENDER_MODE_FIT, uid));
-        mRemoteUid = uid;
-    }
-
-    // 挂断逻辑（核心：重置状态，支持重新接听）
-    private void hangupCall() {
-        isInCall = false;
-        isInitiativeCall = false;
-        stopRinging();
-
-        if (mRtcEngine != null) {
-            // 停止预览、清理视频绑定
-            mRtcEngine.stopPreview();
-            mRtcEngine.setupLocalVideo(new VideoCanvas(null));
-            if (mRemoteUid != -1) {
-                mRtcEngine.setupRemoteVideo(new VideoCanvas(null, VideoCanvas.RENDER_MODE_FIT, mRemoteUid));
-            }
-            // 关闭音视频、离开频道
-            mRtcEngine.disableVideo();
-            mRtcEngine.disableAudio();
-            mRtcEngine.leaveChannel();
-
-            // 重置状态
-            mRemoteUid = -1;
-            isLocalPreviewStarted = false;
-        }
-
-        // 恢复初始UI状态
-        runOnUiThread(this::resetUIState);
-
-        // 核心修复：重新初始化，支持再次接听/呼叫
-        try {
-            // 重新初始化引擎（如果已销毁）
-            if (mRtcEngine == null) {
-                initAgoraEngine();
-                setupVideoConfig();
-            }
-            // 重新获取Token并加入频道
-            getTokenFromServer(this::joinChannelForListening);
-        } catch (Exception e) {
-            e.printStackTrace();
-            Toast.makeText(this, "重置失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+    // 停止预览并解绑本地画面，引擎本身由服务管理
+    private void releaseLocalVideo() {
+        if (session == null || !isLocalPreviewStarted) {
+            return;
         }
-
-        Toast.makeText(this, "已挂断通话，可重新接听/呼叫", Toast.LENGTH_SHORT).show();
+        session.engine().stopPreview();
+        session.engine().setupLocalVideo(new VideoCanvas(null));
+        isLocalPreviewStarted = false;
     }
 
-    // 更新频道用户列表
-    private void updateChannelUserList() {
-        runOnUiThread(() -> {
-            List<String> userList = new ArrayList<>();
-            for (int uid : channelUserUids) {
-                if (uid != LOCAL_UID) { // 排除自己
-                    userList.add("用户 UID: " + uid);
-                }
-            }
-            userListAdapter.clear();
-            userListAdapter.addAll(userList);
-            userListAdapter.notifyDataSetChanged();
-        });
-    }
-
-    // 声网回调
-    private final IRtcEngineEventHandler mRtcEventHandler = new IRtcEngineEventHandler() {
-        @Override
-        public void onJoinChannelSuccess(String channel, int uid, int elapsed) {
-            runOnUiThread(() -> Toast.makeText(MainActivity.this, "已加入频道", Toast.LENGTH_SHORT).show());
-            // 加入频道后添加自己到用户列表
-            channelUserUids.add(LOCAL_UID);
-            updateChannelUserList();
-        }
-
-        @Override
-        public void onUserJoined(int uid, int elapsed) {
-            // 新增用户到列表
-            channelUserUids.add(uid);
-            updateChannelUserList();
-
-            // 被动来电：非主动呼叫且未在通话中时启动振铃
-            if (!isInitiativeCall && !isInCall) {
-                mRemoteUid = uid;
-                runOnUiThread(() -> startRinging());
-            }
-        }
-
-        @Override
-        public void onUserOffline(int uid, int reason) {
-            // 移除离线用户
-            channelUserUids.remove(uid);
-            updateChannelUserList();
-
-            runOnUiThread(() -> {
-                stopRinging();
-                String tip = reason == Constants.USER_OFFLINE_QUIT ? "对方已挂断" : "对方网络断开";
-                Toast.makeText(MainActivity.this, tip, Toast.LENGTH_SHORT).show();
-
-                // 如果是当前通话对象离线，挂断并重置
-                if (uid == mRemoteUid && isInCall) {
-                    hangupCall();
-                }
-                mRemoteUid = -1;
-            });
-        }
-
-        @Override
-        public void onLeaveChannel(RtcStats stats) {
-            runOnUiThread(() -> Toast.makeText(MainActivity.this, "已离开频道", Toast.LENGTH_SHORT).show());
-            channelUserUids.clear();
-            updateChannelUserList();
-        }
-
-        // Token即将过期续期
-        @Override
-        public void onTokenPrivilegeWillExpire(String token) {
-            super.onTokenPrivilegeWillExpire(token);
-            runOnUiThread(() -> Toast.makeText(MainActivity.this, "Token即将过期，正在续期...", Toast.LENGTH_SHORT).show());
-            renewToken();
-        }
-
-        // Token已过期重新获取
-        @Override
-        public void onRequestToken() {
-            super.onRequestToken();
-            runOnUiThread(() -> Toast.makeText(MainActivity.this, "Token已过期，重新加入频道...", Toast.LENGTH_SHORT).show());
-            getTokenFromServer(() -> {
-                mRtcEngine.leaveChannel();
-                joinChannelForListening();
-            });
-        }
-    };
-
     @Override
     public void onClick(View v) {
+        if (session == null) {
+            return;
+        }
         int id = v.getId();
         if (id == R.id.btn_answer) {
-            answerCall(); // 接听通话
+            session.answer(); // 接听通话
         } else if (id == R.id.btn_reject) {
-            rejectCall(); // 拒绝通话
+            session.reject(); // 拒绝通话
         } else if (id == R.id.btn_hangup) {
-            hangupCall(); // 挂断通话
+            session.hangup(); // 挂断通话
         } else if (id == R.id.btn_call_selected) {
-            callSelectedUser(); // 主动呼叫选中用户
+            session.callSelected(); // 主动呼叫选中用户
         }
     }
 
     // SurfaceHolder回调
     @Override
     public void surfaceCreated(SurfaceHolder holder) {
-        if (isInCall) {
+        if (session != null && session.isMediaActive()) {
             setupLocalVideo();
         }
     }
@@ -604,40 +310,36 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
     @Override
     public void surfaceDestroyed(SurfaceHolder holder) {
-        if (mRtcEngine != null && isLocalPreviewStarted) {
-            mRtcEngine.stopPreview();
+        if (session != null && isLocalPreviewStarted) {
+            session.engine().stopPreview();
             isLocalPreviewStarted = false;
         }
     }
 
     @Override
     protected void onDestroy() {
-        stopRinging();
-        // 释放唤醒锁
-        if (wakeLock != null && wakeLock.isHeld()) {
-            wakeLock.release();
-        }
-        if (screenWakeLock != null && screenWakeLock.isHeld()) {
-            screenWakeLock.release();
+        // 解绑画面和回调；通话、频道和引擎留在服务里，重新打开界面时直接恢复
+        if (session != null) {
+            session.setListener(null);
+            releaseLocalVideo();
+            remoteGrid.clear();
+            session = null;
         }
-        // 释放振动器
-        if (vibrator != null) {
-            vibrator.cancel();
-        }
-        // 停止前台服务
-        if (foregroundServiceIntent != null) {
-            stopService(foregroundServiceIntent);
+        if (rvUserList != null) {
+            rvUserList.setAdapter(null);
         }
         // 移除Surface回调
         if (svLocal != null) {
             svLocal.getHolder().removeCallback(this);
         }
-        // 销毁引擎
-        if (mRtcEngine != null) {
-            mRtcEngine.leaveChannel();
-            RtcEngine.destroy();
-            mRtcEngine = null;
+        if (isServiceBound) {
+            unbindService(sessionConnection);
+            isServiceBound = false;
+        }
+        // 用户主动退出时才停止前台服务（离开频道、销毁引擎）；旋转或被系统回收时保留
+        if (foregroundServiceIntent != null && isFinishing() && !isChangingConfigurations()) {
+            stopService(foregroundServiceIntent);
         }
         super.onDestroy();
     }
-}
\ No newline at end of file
+}
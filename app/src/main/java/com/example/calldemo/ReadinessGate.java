@@ -0,0 +1,44 @@
+package com.example.calldemo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 入会就绪门：引擎已创建、Token 已拿到、权限已授予三个条件各占一位，
+ * 最后一个条件满足的那一刻立即触发 onReady（在发出信号的线程上执行），不再固定延迟。
+ * <p>
+ * 条件全部满足后重复发出信号不会再次触发（例如 Token 续期）；
+ * 需要重新入会时先 {@link #clear(int)} 对应条件，再次满足时会再触发一次。
+ */
+final class ReadinessGate {
+    static final int ENGINE = 1;
+    static final int TOKEN = 1 << 1;
+    static final int PERMISSIONS = 1 << 2;
+    static final int ALL = ENGINE | TOKEN | PERMISSIONS;
+
+    private final AtomicInteger state = new AtomicInteger();
+    private final Runnable onReady;
+
+    ReadinessGate(Runnable onReady) {
+        this.onReady = onReady;
+    }
+
+    void signal(int condition) {
+        int prev;
+        int next;
+        do {
+            prev = state.get();
+            next = prev | condition;
+        } while (!state.compareAndSet(prev, next));
+        if (prev != ALL && next == ALL) {
+            onReady.run();
+        }
+    }
+
+    void clear(int condition) {
+        state.getAndAccumulate(condition, (prev, c) -> prev & ~c);
+    }
+
+    boolean isReady() {
+        return state.get() == ALL;
+    }
+}
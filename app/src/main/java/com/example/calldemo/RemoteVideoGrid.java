@@ -0,0 +1,141 @@
+package com.example.calldemo;
+
+import android.view.SurfaceView;
+import android.widget.GridLayout;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import io.agora.rtc2.Constants;
+import io.agora.rtc2.RtcEngine;
+import io.agora.rtc2.video.VideoCanvas;
+
+/**
+ * 多人通话的远端画面网格：每个远端一个 SurfaceView，按加入顺序排成近似正方形的网格。
+ * 远端离开时画面解绑并回收到池里，下一位直接复用，不再反复创建 SurfaceView。
+ * <p>
+ * 只有一位远端时订阅大流铺满；多人时只有当前说话人订阅大流，其余订阅小流，
+ * 人数增加时解码和带宽只随小流线性增长。仅在主线程访问。
+ */
+final class RemoteVideoGrid {
+    private static final int MAX_POOLED = 8;
+
+    private final GridLayout container;
+    private final RtcEngine engine;
+    private final ArrayDeque<SurfaceView> pool = new ArrayDeque<>();
+    // 按加入顺序
+    private int[] uids = new int[4];
+    private SurfaceView[] views = new SurfaceView[4];
+    private int size;
+    private int activeUid = -1;
+
+    RemoteVideoGrid(GridLayout container, RtcEngine engine) {
+        this.container = container;
+        this.engine = engine;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int uid) {
+        return indexOf(uid) >= 0;
+    }
+
+    // 按加入顺序的第 index 位远端
+    int get(int index) {
+        return uids[index];
+    }
+
+    void add(int uid) {
+        if (indexOf(uid) >= 0) {
+            return;
+        }
+        if (size == uids.length) {
+            uids = Arrays.copyOf(uids, size * 2);
+            views = Arrays.copyOf(views, size * 2);
+        }
+        SurfaceView view = pool.poll();
+        if (view == null) {
+            view = new SurfaceView(container.getContext());
+        }
+        uids[size] = uid;
+        views[size] = view;
+        size++;
+        container.addView(view, new GridLayout.LayoutParams());
+        engine.setupRemoteVideo(new VideoCanvas(view, VideoCanvas.RENDER_MODE_HIDDEN, uid));
+        if (activeUid == -1) {
+            activeUid = uid;
+        }
+        relayout();
+    }
+
+    void remove(int uid) {
+        int index = indexOf(uid);
+        if (index < 0) {
+            return;
+        }
+        SurfaceView view = views[index];
+        engine.setupRemoteVideo(new VideoCanvas(null, VideoCanvas.RENDER_MODE_HIDDEN, uid));
+        container.removeView(view);
+        if (pool.size() < MAX_POOLED) {
+            pool.push(view);
+        }
+        System.arraycopy(uids, index + 1, uids, index, size - index - 1);
+        System.arraycopy(views, index + 1, views, index, size - index - 1);
+        views[--size] = null;
+        if (uid == activeUid) {
+            activeUid = size > 0 ? uids[0] : -1;
+        }
+        relayout();
+    }
+
+    void clear() {
+        while (size > 0) {
+            remove(uids[size - 1]);
+        }
+    }
+
+    // onActiveSpeaker：说话人切到大流，上一位退回小流
+    void setActiveSpeaker(int uid) {
+        if (uid == activeUid || indexOf(uid) < 0) {
+            return;
+        }
+        int previous = activeUid;
+        activeUid = uid;
+        if (size > 1) {
+            if (previous != -1) {
+                engine.setRemoteVideoStreamType(previous, Constants.VIDEO_STREAM_LOW);
+            }
+            engine.setRemoteVideoStreamType(uid, Constants.VIDEO_STREAM_HIGH);
+        }
+    }
+
+    // 1 人铺满，2~4 人两列，5~9 人三列……每格等分剩余空间
+    private void relayout() {
+        int columns = (int) Math.ceil(Math.sqrt(size));
+        container.setColumnCount(Math.max(columns, 1));
+        for (int i = 0; i < size; i++) {
+            GridLayout.LayoutParams params = (GridLayout.LayoutParams) views[i].getLayoutParams();
+            params.width = 0;
+            params.height = 0;
+            params.columnSpec = GridLayout.spec(i % columns, 1f);
+            params.rowSpec = GridLayout.spec(i / columns, 1f);
+            views[i].setLayoutParams(params);
+        }
+        for (int i = 0; i < size; i++) {
+            int uid = uids[i];
+            engine.setRemoteVideoStreamType(uid,
+                    size == 1 || uid == activeUid ? Constants.VIDEO_STREAM_HIGH : Constants.VIDEO_STREAM_LOW);
+        }
+    }
+
+    private int indexOf(int uid) {
+        for (int i = 0; i < size; i++) {
+            if (uids[i] == uid) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.calldemo;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+import android.widget.CheckedTextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Arrays;
+
+import io.agora.rtc2.Constants;
+
+/**
+ * 频道内用户列表：{@link RosterMember} 按 UID 升序保存在数组中，增删只通知变化的位置，不再整表重建；
+ * 发布状态、网络质量变化只局部重绑对应行。
+ * 仅在主线程访问，事件由 {@link RosterUpdateBatcher} 按帧批量送入。
+ */
+final class RosterAdapter extends RecyclerView.Adapter<RosterAdapter.Holder> implements RosterUpdateBatcher.Sink {
+    interface OnSelectListener {
+        // 选中的成员变化，null 表示没有选中（例如选中的用户已离开）
+        void onSelect(RosterMember member);
+    }
+
+    static final class Holder extends RecyclerView.ViewHolder {
+        final CheckedTextView text;
+
+        Holder(CheckedTextView text) {
+            super(text);
+            this.text = text;
+        }
+    }
+
+    // 只更新状态文字和选中标记，不重新创建行
+    private static final Object PAYLOAD_STATE = new Object();
+
+    private final OnSelectListener listener;
+    private final StringBuilder label = new StringBuilder(32);
+    private RosterMember[] members = new RosterMember[16];
+    private int size;
+    private RosterMember selected;
+
+    RosterAdapter(OnSelectListener listener) {
+        this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    // 频道内的成员，不存在时为 null
+    RosterMember get(int uid) {
+        int position = indexOf(uid);
+        return position < 0 ? null : members[position];
+    }
+
+    @Override
+    public void onJoin(int uid, long joinTimeMs) {
+        int index = indexOf(uid);
+        if (index >= 0) {
+            return;
+        }
+        int position = -index - 1;
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size * 2);
+        }
+        System.arraycopy(members, position, members, position + 1, size - position);
+        members[position] = new RosterMember(uid, joinTimeMs);
+        size++;
+        notifyItemInserted(position);
+    }
+
+    @Override
+    public void onLeave(int uid) {
+        int position = indexOf(uid);
+        if (position < 0) {
+            return;
+        }
+        RosterMember member = members[position];
+        System.arraycopy(members, position + 1, members, position, size - position - 1);
+        members[--size] = null;
+        notifyItemRemoved(position);
+        if (member == selected) {
+            select(null);
+        }
+    }
+
+    @Override
+    public void onClear() {
+        int count = size;
+        Arrays.fill(members, 0, count, null);
+        size = 0;
+        if (count > 0) {
+            notifyItemRangeRemoved(0, count);
+        }
+        select(null);
+    }
+
+    @Override
+    public void onPublishing(int uid, int flag, boolean publishing) {
+        int position = indexOf(uid);
+        if (position < 0) {
+            return;
+        }
+        RosterMember member = members[position];
+        int flags = publishing ? member.publishFlags | flag : member.publishFlags & ~flag;
+        if (flags != member.publishFlags) {
+            member.publishFlags = flags;
+            notifyItemChanged(position, PAYLOAD_STATE);
+        }
+    }
+
+    @Override
+    public void onNetworkQuality(int uid, int txQuality, int rxQuality) {
+        int position = indexOf(uid);
+        if (position < 0) {
+            return;
+        }
+        RosterMember member = members[position];
+        int before = qualityLevel(member.worstQuality());
+        member.txQuality = txQuality;
+        member.rxQuality = rxQuality;
+        // 每 2 秒一次的质量回调只有显示档位变化时才重绑
+        if (qualityLevel(member.worstQuality()) != before) {
+            notifyItemChanged(position, PAYLOAD_STATE);
+        }
+    }
+
+    // 当前选中的成员，没有选中时为 null
+    RosterMember getSelected() {
+        return selected;
+    }
+
+    void clearSelection() {
+        int position = selected == null ? -1 : indexOf(selected.uid);
+        selected = null;
+        if (position >= 0) {
+            notifyItemChanged(position, PAYLOAD_STATE);
+        }
+    }
+
+    private void select(RosterMember member) {
+        if (member == selected) {
+            return;
+        }
+        int previous = selected == null ? -1 : indexOf(selected.uid);
+        selected = member;
+        if (previous >= 0) {
+            notifyItemChanged(previous, PAYLOAD_STATE);
+        }
+        int current = member == null ? -1 : indexOf(member.uid);
+        if (current >= 0) {
+            notifyItemChanged(current, PAYLOAD_STATE);
+        }
+        listener.onSelect(member);
+    }
+
+    // 二分查找，未找到时返回 -(插入位置) - 1
+    private int indexOf(int uid) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midUid = members[mid].uid;
+            if (midUid < uid) {
+                low = mid + 1;
+            } else if (midUid > uid) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // 0 未知，1 良好，2 一般，3 差
+    private static int qualityLevel(int quality) {
+        if (quality == Constants.QUALITY_UNKNOWN) {
+            return 0;
+        }
+        if (quality <= Constants.QUALITY_GOOD) {
+            return 1;
+        }
+        return quality <= Constants.QUALITY_BAD ? 2 : 3;
+    }
+
+    @NonNull
+    @Override
+    public Holder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        CheckedTextView view = (CheckedTextView) LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_user, parent, false);
+        Holder holder = new Holder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                select(members[position]);
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull Holder holder, int position) {
+        RosterMember member = members[position];
+        label.setLength(0);
+        label.append("用户 UID: ").append(member.uid);
+        if (member.isPublishing()) {
+            label.append(" · 通话中");
+        }
+        switch (qualityLevel(member.worstQuality())) {
+            case 1:
+                label.append(" · 网络良好");
+                break;
+            case 2:
+                label.append(" · 网络一般");
+                break;
+            case 3:
+                label.append(" · 网络差");
+                break;
+            default:
+                break;
+        }
+        holder.text.setText(label);
+        holder.text.setChecked(member == selected);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return members[position].uid & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public int getItemCount() {
+        return size;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.calldemo;
+
+import io.agora.rtc2.Constants;
+
+/**
+ * 用户列表中的一个频道成员。只在主线程读写，由 {@link RosterAdapter} 持有。
+ */
+final class RosterMember {
+    static final int PUBLISH_AUDIO = 1;
+    static final int PUBLISH_VIDEO = 1 << 1;
+
+    final int uid;
+    // 加入时间，SystemClock.elapsedRealtime()
+    final long joinTimeMs;
+    // PUBLISH_* 位
+    int publishFlags;
+    // 上下行网络质量，Constants.QUALITY_*
+    int txQuality = Constants.QUALITY_UNKNOWN;
+    int rxQuality = Constants.QUALITY_UNKNOWN;
+
+    RosterMember(int uid, long joinTimeMs) {
+        this.uid = uid;
+        this.joinTimeMs = joinTimeMs;
+    }
+
+    boolean isPublishing() {
+        return publishFlags != 0;
+    }
+
+    // 上下行中较差的一项，都未知（含检测中）时为 QUALITY_UNKNOWN
+    int worstQuality() {
+        return Math.max(known(txQuality), known(rxQuality));
+    }
+
+    private static int known(int quality) {
+        return quality >= Constants.QUALITY_EXCELLENT && quality <= Constants.QUALITY_DOWN ? quality : Constants.QUALITY_UNKNOWN;
+    }
+}
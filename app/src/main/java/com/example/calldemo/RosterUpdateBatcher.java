@@ -0,0 +1,194 @@
+package com.example.calldemo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+
+/**
+ * 把 SDK 回调线程上的成员事件（加入/离开、发布状态、网络质量）攒到下一帧，在主线程一次性交给 {@link Sink}，
+ * 加入风暴时每帧只做一轮列表更新，而不是每个事件一次主线程投递和重新布局。
+ * <p>
+ * 息屏或界面不在前台时不再有帧回调，因此同时在主线程 Handler 上挂一个 FALLBACK_DELAY_MS 的兜底，先到者处理；
+ * 没有界面绑定时（{@link #setFrameDriven(boolean) setFrameDriven(false)}）直接走 Handler，不等帧。
+ * <p>
+ * 事件存放在两组交替使用的基本类型数组里，稳定状态下不分配对象。
+ * 必须在主线程创建（Choreographer 按线程获取），enqueue 方法可在任意线程调用。
+ */
+final class RosterUpdateBatcher implements Choreographer.FrameCallback {
+    interface Sink {
+        void onJoin(int uid, long joinTimeMs);
+
+        void onLeave(int uid);
+
+        void onClear();
+
+        // flag 为 RosterMember.PUBLISH_*
+        void onPublishing(int uid, int flag, boolean publishing);
+
+        void onNetworkQuality(int uid, int txQuality, int rxQuality);
+    }
+
+    private static final byte JOIN = 0;
+    private static final byte LEAVE = 1;
+    private static final byte CLEAR = 2;
+    private static final byte PUBLISH_ON = 3;
+    private static final byte PUBLISH_OFF = 4;
+    private static final byte QUALITY = 5;
+
+    // 等不到帧回调时最多延迟这么久处理
+    static final long FALLBACK_DELAY_MS = 100;
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushTask = this::flush;
+    private final Sink sink;
+
+    // 由锁保护：回调线程写入 pending，主线程在帧回调里与 draining 交换
+    private int[] pendingUids = new int[32];
+    private byte[] pendingKinds = new byte[32];
+    private long[] pendingValues = new long[32];
+    private int pendingCount;
+    private boolean frameScheduled;
+    private boolean frameDriven; // 有界面绑定时按帧处理，否则直接投递到 Handler
+    private boolean cancelled;
+
+    // 仅主线程访问
+    private int[] drainingUids = new int[32];
+    private byte[] drainingKinds = new byte[32];
+    private long[] drainingValues = new long[32];
+
+    RosterUpdateBatcher(Sink sink) {
+        this.sink = sink;
+    }
+
+    void join(int uid, long joinTimeMs) {
+        enqueue(JOIN, uid, joinTimeMs);
+    }
+
+    void leave(int uid) {
+        enqueue(LEAVE, uid, 0);
+    }
+
+    void clear() {
+        enqueue(CLEAR, 0, 0);
+    }
+
+    void publishing(int uid, int flag, boolean publishing) {
+        enqueue(publishing ? PUBLISH_ON : PUBLISH_OFF, uid, flag);
+    }
+
+    void networkQuality(int uid, int txQuality, int rxQuality) {
+        enqueue(QUALITY, uid, ((long) txQuality << 32) | (rxQuality & 0xFFFFFFFFL));
+    }
+
+    // 界面绑定/解绑时在主线程调用；切到 Handler 时已在等帧的事件立即处理
+    void setFrameDriven(boolean frameDriven) {
+        synchronized (this) {
+            this.frameDriven = frameDriven;
+            if (frameDriven || !frameScheduled) {
+                return;
+            }
+        }
+        handler.removeCallbacks(flushTask);
+        handler.post(flushTask);
+    }
+
+    // 页面销毁时调用，丢弃未处理的事件
+    void cancel() {
+        synchronized (this) {
+            cancelled = true;
+            pendingCount = 0;
+        }
+        choreographer.removeFrameCallback(this);
+        handler.removeCallbacks(flushTask);
+    }
+
+    private void enqueue(byte kind, int uid, long value) {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            if (kind == CLEAR) {
+                // 之前未处理的事件都会被清空覆盖
+                pendingCount = 0;
+            }
+            if (pendingCount == pendingUids.length) {
+                pendingUids = Arrays.copyOf(pendingUids, pendingCount * 2);
+                pendingKinds = Arrays.copyOf(pendingKinds, pendingCount * 2);
+                pendingValues = Arrays.copyOf(pendingValues, pendingCount * 2);
+            }
+            pendingUids[pendingCount] = uid;
+            pendingKinds[pendingCount] = kind;
+            pendingValues[pendingCount] = value;
+            pendingCount++;
+            if (frameScheduled) {
+                return;
+            }
+            frameScheduled = true;
+            if (!frameDriven) {
+                handler.post(flushTask);
+                return;
+            }
+        }
+        // Choreographer 和 Handler 内部加锁，可以从回调线程注册主线程的帧回调和兜底任务
+        choreographer.postFrameCallback(this);
+        handler.postDelayed(flushTask, FALLBACK_DELAY_MS);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        flush();
+    }
+
+    // 主线程：帧回调或 Handler 兜底先到者处理，另一个随之取消
+    private void flush() {
+        choreographer.removeFrameCallback(this);
+        handler.removeCallbacks(flushTask);
+        int[] uids;
+        byte[] kinds;
+        long[] values;
+        int count;
+        synchronized (this) {
+            frameScheduled = false;
+            if (cancelled) {
+                return;
+            }
+            uids = pendingUids;
+            kinds = pendingKinds;
+            values = pendingValues;
+            count = pendingCount;
+            pendingUids = drainingUids;
+            pendingKinds = drainingKinds;
+            pendingValues = drainingValues;
+            pendingCount = 0;
+            drainingUids = uids;
+            drainingKinds = kinds;
+            drainingValues = values;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int uid = uids[i];
+            long value = values[i];
+            switch (kinds[i]) {
+                case JOIN:
+                    sink.onJoin(uid, value);
+                    break;
+                case LEAVE:
+                    sink.onLeave(uid);
+                    break;
+                case CLEAR:
+                    sink.onClear();
+                    break;
+                case PUBLISH_ON:
+                case PUBLISH_OFF:
+                    sink.onPublishing(uid, (int) value, kinds[i] == PUBLISH_ON);
+                    break;
+                default:
+                    sink.onNetworkQuality(uid, (int) (value >> 32), (int) value);
+                    break;
+            }
+        }
+    }
+}
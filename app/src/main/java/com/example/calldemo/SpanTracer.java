@@ -0,0 +1,163 @@
+package com.example.calldemo;
+
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * 轻量耗时追踪：一次 trace（如启动到入会、点击呼叫到首帧）由若干阶段 span 组成，
+ * 时间取单调时钟的纳秒值，结束时输出瀑布图，并按阶段名累计到跨多次 trace 的汇总里，
+ * 用来衡量每个阶段的优化效果。
+ * <p>
+ * 阶段可以在不同线程开始和结束（例如 Token 在后台线程签发、入会在 SDK 回调线程完成），所有方法都加锁；
+ * 同一时刻只有一个进行中的 trace。{@link #start(String)} 返回的 id 带有 trace 代数，
+ * 上一次 trace 遗留的 id 在新 trace 上调用 {@link #end(int)} 会被忽略。
+ */
+final class SpanTracer {
+    static final int NO_SPAN = -1;
+
+    private static final int MAX_SPANS = 32;
+    private static final int BAR_WIDTH = 40;
+
+    private final String name;
+    private final LongSupplier nanoClock;
+
+    // 当前 trace
+    private final String[] spanNames = new String[MAX_SPANS];
+    private final long[] startNs = new long[MAX_SPANS];
+    private final long[] endNs = new long[MAX_SPANS];
+    private final boolean[] ended = new boolean[MAX_SPANS];
+    private int spanCount;
+    private int generation;
+    private boolean active;
+    private String label;
+    private long originNs;
+
+    // 跨 trace 汇总，按阶段名线性查找（阶段只有十来个）
+    private final String[] totalNames = new String[MAX_SPANS + 1];
+    private final long[] totalCount = new long[MAX_SPANS + 1];
+    private final long[] totalSumNs = new long[MAX_SPANS + 1];
+    private final long[] totalMaxNs = new long[MAX_SPANS + 1];
+    private int totalSize;
+
+    SpanTracer(String name, LongSupplier nanoClock) {
+        this.name = name;
+        this.nanoClock = nanoClock;
+    }
+
+    // 开始新的 trace，未结束的上一次直接丢弃
+    synchronized void begin(String label) {
+        this.label = label;
+        originNs = nanoClock.getAsLong();
+        spanCount = 0;
+        generation = (generation + 1) & 0x7FFFFF;
+        active = true;
+    }
+
+    synchronized boolean isActive() {
+        return active;
+    }
+
+    /**
+     * @return span id，没有进行中的 trace 或阶段已满时为 {@link #NO_SPAN}
+     */
+    synchronized int start(String span) {
+        if (!active || spanCount == MAX_SPANS) {
+            return NO_SPAN;
+        }
+        int index = spanCount++;
+        spanNames[index] = span;
+        startNs[index] = nanoClock.getAsLong();
+        ended[index] = false;
+        return generation << 8 | index;
+    }
+
+    synchronized void end(int span) {
+        if (!active || span == NO_SPAN || span >>> 8 != generation) {
+            return;
+        }
+        int index = span & 0xFF;
+        if (!ended[index]) {
+            endNs[index] = nanoClock.getAsLong();
+            ended[index] = true;
+        }
+    }
+
+    // 瞬时事件：记录到达时刻，持续时间为 0
+    synchronized void mark(String event) {
+        int span = start(event);
+        if (span != NO_SPAN) {
+            endNs[span & 0xFF] = startNs[span & 0xFF];
+            ended[span & 0xFF] = true;
+        }
+    }
+
+    /**
+     * 结束当前 trace：已完成的阶段计入汇总，返回瀑布图文本；没有进行中的 trace 时返回 null。
+     * 未结束的阶段在瀑布图里标为 open，不计入汇总。
+     */
+    synchronized String finish() {
+        if (!active) {
+            return null;
+        }
+        active = false;
+        long totalNs = nanoClock.getAsLong() - originNs;
+        accumulate("(total)", totalNs);
+
+        StringBuilder out = new StringBuilder(80 * (spanCount + 1));
+        out.append(name).append(' ').append(label).append(" total ").append(millis(totalNs)).append(" ms\n");
+        for (int i = 0; i < spanCount; i++) {
+            long offsetNs = startNs[i] - originNs;
+            boolean open = !ended[i];
+            long durationNs = (open ? originNs + totalNs : endNs[i]) - startNs[i];
+            if (!open) {
+                accumulate(spanNames[i], durationNs);
+            }
+            out.append(String.format(Locale.ROOT, "  %-16s +%8s %8s ms ", spanNames[i], millis(offsetNs),
+                    open ? "open" : millis(durationNs)));
+            appendBar(out, offsetNs, durationNs, totalNs);
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    // 跨 trace 汇总：每个阶段的次数、平均和最大耗时
+    synchronized String summary() {
+        StringBuilder out = new StringBuilder(64 * (totalSize + 1));
+        out.append(name).append(" summary\n");
+        for (int i = 0; i < totalSize; i++) {
+            out.append(String.format(Locale.ROOT, "  %-16s n=%d avg=%s max=%s ms\n", totalNames[i], totalCount[i],
+                    millis(totalSumNs[i] / totalCount[i]), millis(totalMaxNs[i])));
+        }
+        return out.toString();
+    }
+
+    private void accumulate(String span, long durationNs) {
+        int index = 0;
+        while (index < totalSize && !totalNames[index].equals(span)) {
+            index++;
+        }
+        if (index == totalSize) {
+            if (totalSize == totalNames.length) {
+                return;
+            }
+            totalNames[totalSize++] = span;
+        }
+        totalCount[index]++;
+        totalSumNs[index] += durationNs;
+        totalMaxNs[index] = Math.max(totalMaxNs[index], durationNs);
+    }
+
+    private static void appendBar(StringBuilder out, long offsetNs, long durationNs, long totalNs) {
+        int from = totalNs <= 0 ? 0 : (int) Math.min(BAR_WIDTH - 1, offsetNs * BAR_WIDTH / totalNs);
+        int to = totalNs <= 0 ? 1 : (int) Math.min(BAR_WIDTH, (offsetNs + durationNs) * BAR_WIDTH / totalNs);
+        out.append('|');
+        for (int i = 0; i < BAR_WIDTH; i++) {
+            out.append(i >= from && (i < to || i == from) ? '#' : '.');
+        }
+        out.append('|');
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.calldemo;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.agora.media.TokenCache;
+import io.agora.media.Utils;
+
+/**
+ * 主动续期：根据当前 Token 自身携带的过期时间（issueTs + expire 与各权限过期时间中最早者），
+ * 在过期前 leadSeconds（再随机提前 0~jitterSeconds，避免多端同时续期）签发新 Token 并交给引擎 renewToken，
+ * 不再等 onTokenPrivilegeWillExpire / onRequestToken 被动触发。
+ * 签发失败按指数退避重试，直到成功或被 cancel。
+ * 所有任务都在同一个 ScheduledExecutorService 上执行，方法可在任意线程调用。
+ */
+final class TokenRefreshScheduler {
+    interface Callback {
+        // 在调度线程上执行，返回新 Token，失败返回空串
+        String mintToken();
+
+        // 新 Token 已签发，交给引擎续期
+        void onTokenRenewed(String token);
+    }
+
+    static final int DEFAULT_LEAD_SECONDS = 120;
+    static final int DEFAULT_JITTER_SECONDS = 30;
+    static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 2000;
+    static final long DEFAULT_MAX_BACKOFF_MILLIS = 60000;
+
+    private final ScheduledExecutorService executor;
+    private final Callback callback;
+    private final int leadSeconds;
+    private final int jitterSeconds;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private ScheduledFuture<?> pending;
+    private long backoffMillis;
+    // 过期时间（秒），-1 表示未跟踪
+    private long expireTs = -1;
+
+    TokenRefreshScheduler(ScheduledExecutorService executor, Callback callback) {
+        this(executor, callback, DEFAULT_LEAD_SECONDS, DEFAULT_JITTER_SECONDS,
+                DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    TokenRefreshScheduler(ScheduledExecutorService executor, Callback callback, int leadSeconds, int jitterSeconds,
+            long initialBackoffMillis, long maxBackoffMillis) {
+        this.executor = executor;
+        this.callback = callback;
+        this.leadSeconds = leadSeconds;
+        this.jitterSeconds = jitterSeconds;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * 跟踪引擎当前使用的 Token，并按其过期时间安排下一次续期。
+     *
+     * @return false 表示无法解析过期时间（不会安排续期）
+     */
+    synchronized boolean track(String token) {
+        long expireTs = TokenCache.getExpireTs(token);
+        if (expireTs < 0) {
+            return false;
+        }
+        this.expireTs = expireTs;
+        backoffMillis = initialBackoffMillis;
+        if (expireTs == Long.MAX_VALUE) {
+            cancelPending();
+            return true;
+        }
+        int jitter = jitterSeconds > 0 ? ThreadLocalRandom.current().nextInt(jitterSeconds + 1) : 0;
+        long delaySeconds = expireTs - leadSeconds - jitter - Utils.getTimestamp();
+        schedule(Math.max(0, delaySeconds) * 1000);
+        return true;
+    }
+
+    // 立即续期，例如收到 onTokenPrivilegeWillExpire 说明计划已落后
+    synchronized void refreshNow() {
+        schedule(0);
+    }
+
+    synchronized void cancel() {
+        cancelPending();
+        expireTs = -1;
+    }
+
+    // 当前跟踪 Token 的过期时间（秒），未跟踪时为 -1
+    synchronized long getExpireTs() {
+        return expireTs;
+    }
+
+    private void schedule(long delayMillis) {
+        cancelPending();
+        try {
+            pending = executor.schedule(this::refresh, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 执行器已随页面销毁关闭
+            expireTs = -1;
+        }
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void refresh() {
+        String token;
+        try {
+            token = callback.mintToken();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            token = "";
+        }
+
+        synchronized (this) {
+            if (expireTs < 0) {
+                return; // 已取消
+            }
+            if (token == null || token.isEmpty() || TokenCache.getExpireTs(token) <= expireTs) {
+                // 签发失败或拿到的不是更新的 Token：退避后重试
+                long delay = backoffMillis;
+                backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+                schedule(delay);
+                return;
+            }
+        }
+
+        callback.onTokenRenewed(token);
+        synchronized (this) {
+            if (expireTs >= 0) {
+                track(token);
+            }
+        }
+    }
+}
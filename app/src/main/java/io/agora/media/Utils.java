@@ -1,141 +0,0 @@
-package io.agora.media;
-
-import java.io.ByteArrayOutputStream;
-import java.math.BigInteger;
-import java.security.InvalidKeyException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
-import java.util.Date;
-import java.util.zip.CRC32;
-import java.util.zip.Deflater;
-import java.util.zip.Inflater;
-
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-
-import android.util.Base64;
-
-
-public class Utils {
-    public static final long HMAC_SHA256_LENGTH = 32;
-    public static final int VERSION_LENGTH = 3;
-    public static final int APP_ID_LENGTH = 32;
-
-    public static byte[] hmacSign(String keyString, byte[] msg) throws InvalidKeyException, NoSuchAlgorithmException {
-        SecretKeySpec keySpec = new SecretKeySpec(keyString.getBytes(), "HmacSHA256");
-        Mac mac = Mac.getInstance("HmacSHA256");
-        mac.init(keySpec);
-        return mac.doFinal(msg);
-    }
-
-    public static byte[] pack(PackableEx packableEx) {
-        ByteBuf buffer = new ByteBuf();
-        packableEx.marshal(buffer);
-        return buffer.asBytes();
-    }
-
-    public static void unpack(byte[] data, PackableEx packableEx) {
-        ByteBuf buffer = new ByteBuf(data);
-        packableEx.unmarshal(buffer);
-    }
-
-    public static String base64Encode(byte[] data) {
-
-        return Base64.encodeToString(data, Base64.NO_WRAP);
-    }
-
-    public static byte[] base64Decode(String data) {
-        return Base64.decode(data,Base64.NO_WRAP);
-    }
-
-    public static int crc32(String data) {
-        // get bytes from string
-        byte[] bytes = data.getBytes();
-        return crc32(bytes);
-    }
-
-    public static int crc32(byte[] bytes) {
-        CRC32 checksum = new CRC32();
-        checksum.update(bytes);
-        return (int) checksum.getValue();
-    }
-
-    public static int getTimestamp() {
-        return (int) ((new Date().getTime()) / 1000);
-    }
-
-    public static int randomInt() {
-        return new SecureRandom().nextInt();
-    }
-
-    public static boolean isUUID(String uuid) {
-        if (uuid.length() != 32) {
-            return false;
-        }
-
-        return uuid.matches("\\p{XDigit}+");
-    }
-
-    public static byte[] compress(byte[] data) {
-        byte[] output;
-        Deflater deflater = new Deflater();
-        ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length);
-
-        try {
-            deflater.reset();
-            deflater.setInput(data);
-            deflater.finish();
-
-            byte[] buf = new byte[data.length];
-            while (!deflater.finished()) {
-                int i = deflater.deflate(buf);
-                bos.write(buf, 0, i);
-            }
-            output = bos.toByteArray();
-        } catch (Exception e) {
-            output = data;
-            e.printStackTrace();
-        } finally {
-            deflater.end();
-        }
-
-        return output;
-    }
-
-    public static byte[] decompress(byte[] data) {
-        Inflater inflater = new Inflater();
-        ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length);
-
-        try {
-            inflater.setInput(data);
-            byte[] buf = new byte[8192];
-            int len;
-
-            while ((len = inflater.inflate(buf)) > 0) {
-                bos.write(buf, 0, len);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            inflater.end();
-        }
-
-        return bos.toByteArray();
-    }
-
-    public static String md5(String plainText) {
-        byte[] secretBytes = null;
-        try {
-            secretBytes = MessageDigest.getInstance("md5").digest(
-                    plainText.getBytes());
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("No md5 digest！");
-        }
-        String md5code = new BigInteger(1, secretBytes).toString(16);
-        for (int i = 0; i < 32 - md5code.length(); i++) {
-            md5code = "0" + md5code;
-        }
-        return md5code;
-    }
-}
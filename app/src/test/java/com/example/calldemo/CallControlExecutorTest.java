@@ -0,0 +1,46 @@
+package com.example.calldemo;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CallControlExecutorTest {
+    @Test
+    public void submit_coalescedRequestEndsItsSpan() throws Exception {
+        LinkedBlockingQueue<Runnable> main = new LinkedBlockingQueue<>();
+        CallControlExecutor executor = new CallControlExecutor(main::add);
+        SpanTracer tracer = new SpanTracer("join", System::nanoTime);
+        tracer.begin("test");
+        CountDownLatch release = new CountDownLatch(1);
+        int[] calls = new int[2];
+
+        int first = tracer.start("token");
+        assertTrue(executor.submit("token", () -> {
+            release.await();
+            return "t";
+        }, token -> {
+            tracer.end(first);
+            calls[0]++;
+        }, e -> tracer.end(first), () -> tracer.end(first)));
+        int second = tracer.start("token");
+        assertFalse(executor.submit("token", () -> "unused", token -> {
+            tracer.end(second);
+            calls[1]++;
+        }, e -> tracer.end(second), () -> tracer.end(second)));
+        release.countDown();
+
+        // 被替换的收尾 + 最后一次提交的成功回调
+        main.poll(5, TimeUnit.SECONDS).run();
+        main.poll(5, TimeUnit.SECONDS).run();
+        executor.shutdown();
+
+        assertArrayEquals(new int[] {0, 1}, calls);
+        String waterfall = tracer.finish();
+        assertFalse(waterfall, waterfall.contains("open"));
+        assertTrue(tracer.summary().contains("  token            n=2 "));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.calldemo;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class CallStateMachineTest {
+    private long now = 1000;
+
+    @Test
+    public void incomingCall_recordsRingToAnswer() {
+        CallStateMachine machine = new CallStateMachine(() -> now);
+        assertTrue(machine.transition(CallStateMachine.State.LISTENING));
+        assertTrue(machine.transition(CallStateMachine.State.RINGING, 42));
+        assertEquals(42, machine.remoteUid());
+
+        // A second caller while ringing is not a valid transition and leaves the first one in place
+        assertFalse(machine.transition(CallStateMachine.State.RINGING, 43));
+        assertEquals(42, machine.remoteUid());
+
+        now += 2500;
+        assertTrue(machine.transition(CallStateMachine.State.IN_CALL));
+        assertEquals(CallStateMachine.State.RINGING, machine.previous());
+        assertEquals(2500, machine.enteredAt(CallStateMachine.State.IN_CALL)
+                - machine.enteredAt(CallStateMachine.State.RINGING));
+        now += 300;
+        assertEquals(300, machine.elapsedSince(CallStateMachine.State.IN_CALL));
+
+        assertTrue(machine.transition(CallStateMachine.State.TEARING_DOWN));
+        assertTrue(machine.transition(CallStateMachine.State.LISTENING));
+        assertEquals(-1, machine.remoteUid());
+    }
+
+    // The race from the old flags: a remote joining during an outgoing call must not start ringing
+    @Test
+    public void dialing_rejectsRingingAndOffThreadAccess() throws Exception {
+        CallStateMachine machine = new CallStateMachine(() -> now);
+        assertFalse(machine.transition(CallStateMachine.State.DIALING, 7));
+        machine.transition(CallStateMachine.State.LISTENING);
+        assertTrue(machine.transition(CallStateMachine.State.DIALING, 7));
+        assertTrue(machine.inCall());
+        assertFalse(machine.transition(CallStateMachine.State.RINGING, 8));
+        assertFalse(machine.transition(CallStateMachine.State.LISTENING));
+        assertEquals(7, machine.remoteUid());
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread other = new Thread(() -> {
+            try {
+                machine.transition(CallStateMachine.State.TEARING_DOWN);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        other.start();
+        other.join();
+        assertTrue(failure.get() instanceof IllegalStateException);
+        assertEquals(CallStateMachine.State.DIALING, machine.state());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.calldemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CallTelemetryTest {
+    @Test
+    public void report_percentilesOverShuffledSamples() {
+        CallTelemetry telemetry = new CallTelemetry(128);
+        telemetry.record(CallTelemetry.RTT_MS, 999); // Not recording yet
+        telemetry.start(0, 1000);
+        for (int i = 0; i < 100; i++) {
+            telemetry.record(CallTelemetry.RTT_MS, (i * 37) % 100 + 1);
+        }
+        telemetry.record(CallTelemetry.FIRST_FRAME_MS, 420);
+
+        CallTelemetry.Report report = telemetry.stop("uid=42", 61_000);
+        assertNull(telemetry.stop("uid=42", 62_000));
+        assertEquals(60_000, report.durationMs);
+        assertEquals(100, report.count(CallTelemetry.RTT_MS));
+        assertEquals(50, report.percentile(CallTelemetry.RTT_MS, 50));
+        assertEquals(95, report.percentile(CallTelemetry.RTT_MS, 95));
+        assertEquals(99, report.percentile(CallTelemetry.RTT_MS, 99));
+        assertEquals(420, report.percentile(CallTelemetry.FIRST_FRAME_MS, 99));
+        assertEquals(-1, report.percentile(CallTelemetry.CPU, 50));
+        assertTrue(report.format().contains("  rtt_ms n=100 p50=50 p95=95 p99=99 max=100\n"));
+        assertFalse(report.format().contains("cpu_pct"));
+    }
+
+    @Test
+    public void ring_keepsNewestSamplesWhenFull() {
+        CallTelemetry telemetry = new CallTelemetry(8);
+        telemetry.start(0, 0);
+        for (int i = 1; i <= 20; i++) {
+            telemetry.record(CallTelemetry.CPU, i);
+        }
+        CallTelemetry.Report report = telemetry.stop("uid=1", 0);
+        assertEquals(8, report.count(CallTelemetry.CPU));
+        assertEquals(13, report.percentile(CallTelemetry.CPU, 0));
+        assertEquals(20, report.percentile(CallTelemetry.CPU, 100));
+    }
+}
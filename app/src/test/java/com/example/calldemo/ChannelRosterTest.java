@@ -0,0 +1,97 @@
+package com.example.calldemo;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ChannelRosterTest {
+    @Test
+    public void addRemove_keepsSortedAndVersioned() {
+        ChannelRoster roster = new ChannelRoster();
+        assertTrue(roster.add(3));
+        assertTrue(roster.add(1));
+        assertFalse(roster.add(3));
+        assertTrue(roster.add(2));
+        ChannelRoster.Snapshot snapshot = roster.snapshot();
+        assertArrayEquals(new int[] {1, 2, 3}, snapshot.toArray());
+        assertEquals(3, snapshot.epoch);
+
+        assertTrue(roster.remove(2));
+        assertFalse(roster.remove(2));
+        assertArrayEquals(new int[] {1, 3}, roster.snapshot().toArray());
+        // Earlier snapshots never change
+        assertArrayEquals(new int[] {1, 2, 3}, snapshot.toArray());
+
+        roster.clear();
+        assertEquals(0, roster.snapshot().size());
+        assertEquals(5, roster.snapshot().epoch);
+    }
+
+    // Writers churn disjoint uid ranges while a reader checks every snapshot is sorted and
+    // epochs only move forward; at the end exactly each writer's survivors remain.
+    @Test
+    public void concurrentChurn_readersSeeConsistentSnapshots() throws Exception {
+        final int writers = 4;
+        final int range = 64;
+        final int rounds = range * 400;
+        ChannelRoster roster = new ChannelRoster();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            int base = w * range;
+            threads[w] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        int uid = base + (i % range);
+                        if (!roster.add(uid)) {
+                            assertTrue(roster.remove(uid));
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            threads[w].start();
+        }
+
+        Thread reader = new Thread(() -> {
+            long lastEpoch = -1;
+            try {
+                start.await();
+                while (!done.get()) {
+                    ChannelRoster.Snapshot snapshot = roster.snapshot();
+                    assertTrue(snapshot.epoch >= lastEpoch);
+                    lastEpoch = snapshot.epoch;
+                    for (int i = 1; i < snapshot.size(); i++) {
+                        assertTrue(snapshot.get(i - 1) < snapshot.get(i));
+                    }
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        });
+        reader.start();
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        reader.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        // Each uid is toggled 400 times, so every uid was added and removed the same number of times
+        assertEquals(0, roster.snapshot().size());
+        assertEquals((long) writers * rounds, roster.snapshot().epoch);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.calldemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EncoderLadderTest {
+    private long now = 0;
+
+    @Test
+    public void stepsDownQuicklyAndUpOnlyAfterCooldown() {
+        List<String> changes = new ArrayList<>();
+        EncoderLadder ladder = new EncoderLadder(4, 2, (from, to, reason) -> changes.add(from + "->" + to), () -> now);
+        ladder.onLocalVideoStats(800, 800, 15, 15);
+        ladder.onNetworkQuality(1);
+
+        // One bad sample is not enough
+        ladder.onRtcStats(30, 15);
+        assertEquals(2, ladder.step());
+        ladder.onRtcStats(30, 15);
+        assertEquals(1, ladder.step());
+
+        // Good samples right after a downgrade wait for the cooldown
+        for (int i = 0; i < EncoderLadder.UP_SAMPLES; i++) {
+            now += 2000;
+            ladder.onRtcStats(30, 0);
+        }
+        assertEquals(1, ladder.step());
+        now += EncoderLadder.UP_COOLDOWN_MS;
+        for (int i = 0; i < EncoderLadder.UP_SAMPLES; i++) {
+            ladder.onRtcStats(30, 0);
+        }
+        assertEquals(2, ladder.step());
+        assertEquals(List.of("2->1", "1->2"), changes);
+    }
+
+    @Test
+    public void ignoresStatsWhileNotEncoding() {
+        EncoderLadder ladder = new EncoderLadder(4, 2, (from, to, reason) -> fail(), () -> now);
+        ladder.onNetworkQuality(6);
+        ladder.onLocalVideoStats(0, 0, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            ladder.onRtcStats(95, 50);
+        }
+        assertEquals(2, ladder.step());
+    }
+
+    @Test
+    public void resetReturnsToInitialStepAndDropsSamples() {
+        List<String> changes = new ArrayList<>();
+        EncoderLadder ladder = new EncoderLadder(4, 2, (from, to, reason) -> changes.add(from + "->" + to + " " + reason), () -> now);
+        ladder.onLocalVideoStats(800, 800, 15, 15);
+        ladder.onNetworkQuality(5);
+        ladder.onRtcStats(30, 0);
+        ladder.onRtcStats(30, 0);
+        assertEquals(1, ladder.step());
+
+        ladder.reset();
+        assertEquals(2, ladder.step());
+        assertEquals(2, changes.size());
+        assertTrue(changes.get(0).startsWith("2->1 "));
+        assertEquals("1->2 reset", changes.get(1));
+
+        // The bad-network samples of the previous call do not count towards the next one
+        ladder.onRtcStats(30, 0);
+        assertEquals(2, ladder.step());
+        ladder.reset();
+        assertEquals(2, changes.size());
+    }
+}
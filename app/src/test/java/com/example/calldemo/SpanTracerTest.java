@@ -0,0 +1,43 @@
+package com.example.calldemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpanTracerTest {
+    private long nowNs = 0;
+
+    @Test
+    public void finish_rendersWaterfallAndAggregates() {
+        SpanTracer tracer = new SpanTracer("call", () -> nowNs);
+        tracer.begin("uid=42");
+        int media = tracer.start("media");
+        nowNs += 20_000_000;
+        tracer.end(media);
+        int frame = tracer.start("first-frame");
+        int never = tracer.start("never-ends");
+        nowNs += 180_000_000;
+        tracer.end(frame);
+
+        String waterfall = tracer.finish();
+        assertTrue(waterfall, waterfall.startsWith("call uid=42 total 200.0 ms\n"));
+        assertTrue(waterfall, waterfall.contains("  media            +     0.0     20.0 ms |####....."));
+        assertTrue(waterfall, waterfall.contains("  first-frame      +    20.0    180.0 ms |....####"));
+        assertTrue(waterfall, waterfall.contains("  never-ends       +    20.0     open ms"));
+        assertNull(tracer.finish());
+
+        // A span id from the finished trace does not touch the next one
+        tracer.begin("uid=43");
+        tracer.end(never);
+        media = tracer.start("media");
+        nowNs += 40_000_000;
+        tracer.end(media);
+        tracer.finish();
+
+        String summary = tracer.summary();
+        assertTrue(summary, summary.contains("  (total)          n=2 avg=120.0 max=200.0 ms\n"));
+        assertTrue(summary, summary.contains("  media            n=2 avg=30.0 max=40.0 ms\n"));
+        assertTrue(summary, summary.contains("  first-frame      n=1 avg=180.0 max=180.0 ms\n"));
+        assertFalse(summary, summary.contains("never-ends"));
+    }
+}
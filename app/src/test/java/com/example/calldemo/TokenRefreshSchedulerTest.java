@@ -0,0 +1,127 @@
+package com.example.calldemo;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.agora.media.RtcTokenBuilder2;
+import io.agora.media.TokenCache;
+import io.agora.media.Utils;
+
+import static org.junit.Assert.*;
+
+public class TokenRefreshSchedulerTest {
+    private static final String APP_ID = "970CA35de60c44645bbae8a215061b33";
+    private static final String APP_CERTIFICATE = "5CFd2fd1755d40ecb72977518be15d3b";
+
+    // 只记录安排的任务和延迟，不真正执行，由测试手动运行
+    private static final class RecordingExecutor extends ScheduledThreadPoolExecutor {
+        final List<Long> delays = new ArrayList<>();
+        final List<Runnable> tasks = new ArrayList<>();
+
+        RecordingExecutor() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            delays.add(unit.toMillis(delay));
+            tasks.add(command);
+            return super.schedule(() -> { }, 1, TimeUnit.DAYS);
+        }
+
+        long lastDelay() {
+            return delays.get(delays.size() - 1);
+        }
+
+        void runLast() {
+            tasks.get(tasks.size() - 1).run();
+        }
+    }
+
+    private final RecordingExecutor executor = new RecordingExecutor();
+    private final List<String> minted = new ArrayList<>();
+    private final List<String> renewed = new ArrayList<>();
+
+    private final TokenRefreshScheduler.Callback callback = new TokenRefreshScheduler.Callback() {
+        @Override
+        public String mintToken() {
+            return minted.isEmpty() ? "" : minted.remove(0);
+        }
+
+        @Override
+        public void onTokenRenewed(String token) {
+            renewed.add(token);
+        }
+    };
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static String token(int expire) {
+        return new RtcTokenBuilder2().buildTokenWithUid(APP_ID, APP_CERTIFICATE, "HoneyFamily", 1001,
+                RtcTokenBuilder2.Role.ROLE_PUBLISHER, expire, expire);
+    }
+
+    @Test
+    public void track_schedulesLeadAndJitterBeforeExpiry() {
+        TokenRefreshScheduler scheduler = new TokenRefreshScheduler(executor, callback, 120, 30, 1000, 4000);
+        String token = token(3600);
+        long expireTs = TokenCache.getExpireTs(token);
+
+        for (int i = 0; i < 50; i++) {
+            long now = Utils.getTimestamp();
+            assertTrue(scheduler.track(token));
+            long delay = executor.lastDelay();
+            // 提前 120 秒，再随机提前 0~30 秒（允许跨过一秒边界）
+            assertTrue(String.valueOf(delay), delay >= (expireTs - 120 - 30 - now - 1) * 1000);
+            assertTrue(String.valueOf(delay), delay <= (expireTs - 120 - now) * 1000);
+        }
+        assertEquals(expireTs, scheduler.getExpireTs());
+
+        // 已在提前量以内：立即续期
+        assertTrue(scheduler.track(token(60)));
+        assertEquals(0, executor.lastDelay());
+        assertFalse(scheduler.track("abc"));
+    }
+
+    @Test
+    public void refresh_backsOffUpToCapAndResetsAfterSuccess() {
+        TokenRefreshScheduler scheduler = new TokenRefreshScheduler(executor, callback, 120, 0, 1000, 4000);
+        scheduler.track(token(600));
+
+        // 签发失败：1s、2s、4s，之后封顶 4s
+        List<Long> backoff = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            executor.runLast();
+            backoff.add(executor.lastDelay());
+        }
+        assertEquals(List.of(1000L, 2000L, 4000L, 4000L), backoff);
+        assertTrue(renewed.isEmpty());
+
+        // 成功：交给引擎续期，按新 Token 重新安排
+        String fresh = token(3600);
+        minted.add(fresh);
+        executor.runLast();
+        assertEquals(List.of(fresh), renewed);
+        assertEquals(TokenCache.getExpireTs(fresh), scheduler.getExpireTs());
+        assertTrue(executor.lastDelay() > 3000 * 1000);
+
+        // 成功后再失败，退避从初始值重新开始
+        executor.runLast();
+        assertEquals(1000, executor.lastDelay());
+
+        scheduler.cancel();
+        int scheduled = executor.delays.size();
+        executor.runLast();
+        assertEquals(scheduled, executor.delays.size());
+        assertEquals(-1, scheduler.getExpireTs());
+    }
+}
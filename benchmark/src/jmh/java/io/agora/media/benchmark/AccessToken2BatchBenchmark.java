@@ -0,0 +1,59 @@
+package io.agora.media.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.agora.media.AccessToken2;
+import io.agora.media.AccessToken2Batch;
+
+/**
+ * Per-token cost of minting RTC tokens through AccessToken2Batch against standalone AccessToken2.build().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccessToken2BatchBenchmark {
+    private AccessToken2Batch batch;
+    private AccessToken2Batch sharedSaltBatch;
+    private int uid;
+
+    @Setup
+    public void setup() {
+        batch = new AccessToken2Batch(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.EXPIRE);
+        sharedSaltBatch = new AccessToken2Batch(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.EXPIRE, true);
+    }
+
+    private AccessToken2.Service serviceRtc() {
+        AccessToken2.Service serviceRtc = new AccessToken2.ServiceRtc(AccessToken2Benchmark.CHANNEL_NAME,
+                AccessToken2.getUidStr(++uid));
+        serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_JOIN_CHANNEL, AccessToken2Benchmark.EXPIRE);
+        return serviceRtc;
+    }
+
+    @Benchmark
+    public String single() throws Exception {
+        AccessToken2 accessToken = new AccessToken2(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.EXPIRE);
+        accessToken.addService(serviceRtc());
+        return accessToken.build();
+    }
+
+    @Benchmark
+    public String batch() throws Exception {
+        return batch.build(serviceRtc());
+    }
+
+    @Benchmark
+    public String batchSharedSalt() throws Exception {
+        return sharedSaltBatch.build(serviceRtc());
+    }
+}
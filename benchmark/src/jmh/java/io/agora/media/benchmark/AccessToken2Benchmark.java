@@ -0,0 +1,96 @@
+package io.agora.media.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.agora.media.AccessToken2;
+import io.agora.media.AccessToken2Reader;
+import io.agora.media.FpaTokenBuilder;
+import io.agora.media.RtcTokenBuilder2;
+
+/**
+ * Build and parse cost of 007 tokens for every service mix.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccessToken2Benchmark {
+    static final String APP_ID = "970CA35de60c44645bbae8a215061b33";
+    static final String APP_CERTIFICATE = "5CFd2fd1755d40ecb72977518be15d3b";
+    static final String CHANNEL_NAME = "7d72365eb983485397e3e3f9d460bdda";
+    static final int UID = 123456789;
+    static final String ACCOUNT = "123456789";
+    static final int EXPIRE = 600;
+
+    public enum ServiceMix {
+        RTC, RTC_RTM, FPA, CHAT, APAAS
+    }
+
+    @Param({"RTC", "RTC_RTM", "FPA", "CHAT", "APAAS"})
+    public ServiceMix mix;
+
+    private final RtcTokenBuilder2 rtcBuilder = new RtcTokenBuilder2();
+    private final FpaTokenBuilder fpaBuilder = new FpaTokenBuilder();
+    private final AccessToken2Reader reader = new AccessToken2Reader();
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        token = build();
+    }
+
+    @Benchmark
+    public String build() throws Exception {
+        switch (mix) {
+            case RTC:
+                return rtcBuilder.buildTokenWithUid(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, UID,
+                        RtcTokenBuilder2.Role.ROLE_PUBLISHER, EXPIRE, EXPIRE);
+            case RTC_RTM:
+                return rtcBuilder.buildTokenWithRtm2(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, ACCOUNT,
+                        RtcTokenBuilder2.Role.ROLE_PUBLISHER, EXPIRE, EXPIRE, EXPIRE, EXPIRE, EXPIRE, ACCOUNT, EXPIRE);
+            case FPA:
+                return fpaBuilder.buildToken(APP_ID, APP_CERTIFICATE);
+            case CHAT: {
+                AccessToken2 accessToken = new AccessToken2(APP_ID, APP_CERTIFICATE, EXPIRE);
+                AccessToken2.Service serviceChat = new AccessToken2.ServiceChat(ACCOUNT);
+                serviceChat.addPrivilegeChat(AccessToken2.PrivilegeChat.PRIVILEGE_CHAT_USER, EXPIRE);
+                accessToken.addService(serviceChat);
+                return accessToken.build();
+            }
+            case APAAS: {
+                AccessToken2 accessToken = new AccessToken2(APP_ID, APP_CERTIFICATE, EXPIRE);
+                AccessToken2.Service serviceApaas = new AccessToken2.ServiceApaas(CHANNEL_NAME, ACCOUNT, (short) 1);
+                serviceApaas.addPrivilegeApaas(AccessToken2.PrivilegeApaas.PRIVILEGE_ROOM_USER, EXPIRE);
+                accessToken.addService(serviceApaas);
+                return accessToken.build();
+            }
+            default:
+                throw new IllegalStateException("unknown mix: " + mix);
+        }
+    }
+
+    @Benchmark
+    public AccessToken2 parse() {
+        AccessToken2 accessToken = new AccessToken2();
+        if (!accessToken.parse(token)) {
+            throw new IllegalStateException("parse failed");
+        }
+        return accessToken;
+    }
+
+    @Benchmark
+    public int read() {
+        if (!reader.wrap(token)) {
+            throw new IllegalStateException("wrap failed");
+        }
+        return reader.getIssueTs() + reader.getExpire() + reader.getSalt() + reader.getServiceCount();
+    }
+}
@@ -0,0 +1,47 @@
+package io.agora.media.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.agora.media.AccessToken;
+import io.agora.media.RtcTokenBuilder;
+
+/**
+ * Build and parse cost of legacy 006 tokens.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccessTokenBenchmark {
+    private final RtcTokenBuilder builder = new RtcTokenBuilder();
+    private String token;
+
+    @Setup
+    public void setup() {
+        token = build();
+    }
+
+    @Benchmark
+    public String build() {
+        return builder.buildTokenWithUid(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.CHANNEL_NAME, AccessToken2Benchmark.UID, RtcTokenBuilder.Role.Role_Publisher,
+                Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public AccessToken parse() {
+        AccessToken accessToken = new AccessToken(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.CHANNEL_NAME, AccessToken2Benchmark.ACCOUNT);
+        if (!accessToken.fromString(token)) {
+            throw new IllegalStateException("parse failed");
+        }
+        return accessToken;
+    }
+}
@@ -0,0 +1,64 @@
+package io.agora.media.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.agora.media.AccessToken;
+import io.agora.media.AccessToken2;
+
+/**
+ * build() into a String against buildTo() into a reused response buffer, for 006 and 007.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BuildToBenchmark {
+    private final ByteBuffer response = ByteBuffer.allocate(4096);
+    private AccessToken2 accessToken2;
+    private AccessToken accessToken;
+
+    @Setup
+    public void setup() {
+        accessToken2 = new AccessToken2(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.EXPIRE);
+        AccessToken2.Service serviceRtc = new AccessToken2.ServiceRtc(AccessToken2Benchmark.CHANNEL_NAME, AccessToken2Benchmark.ACCOUNT);
+        serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_JOIN_CHANNEL, AccessToken2Benchmark.EXPIRE);
+        accessToken2.addService(serviceRtc);
+
+        accessToken = new AccessToken(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.CHANNEL_NAME, AccessToken2Benchmark.ACCOUNT);
+        accessToken.addPrivilege(AccessToken.Privileges.kJoinChannel, 0);
+    }
+
+    @Benchmark
+    public String build2() throws Exception {
+        return accessToken2.build();
+    }
+
+    @Benchmark
+    public int buildTo2() throws Exception {
+        response.clear();
+        accessToken2.buildTo(response);
+        return response.position();
+    }
+
+    @Benchmark
+    public String build() throws Exception {
+        return accessToken.build();
+    }
+
+    @Benchmark
+    public int buildTo() throws Exception {
+        response.clear();
+        accessToken.buildTo(response);
+        return response.position();
+    }
+}
@@ -0,0 +1,96 @@
+package io.agora.media.benchmark;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.agora.media.ByteBuf;
+import io.agora.media.Utils;
+
+/**
+ * Cost of the ByteBuf / Utils primitives underneath the token builders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ByteBufBenchmark {
+    private final TreeMap<Short, Integer> privileges = new TreeMap<>();
+    private byte[] packed;
+    private byte[] payload;
+    private byte[] compressed;
+    private String encoded;
+
+    @Setup
+    public void setup() {
+        for (short i = 1; i <= 4; i++) {
+            privileges.put(i, 600);
+        }
+        packed = marshal();
+        payload = new byte[160];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 17);
+        }
+        compressed = Utils.compress(payload);
+        encoded = Utils.base64Encode(compressed);
+    }
+
+    @Benchmark
+    public byte[] marshal() {
+        return new ByteBuf()
+                .put(AccessToken2Benchmark.APP_ID)
+                .put(1700000000)
+                .put(600)
+                .put(123456789)
+                .putIntMap(privileges)
+                .put(AccessToken2Benchmark.CHANNEL_NAME)
+                .put(AccessToken2Benchmark.ACCOUNT)
+                .asBytes();
+    }
+
+    @Benchmark
+    public TreeMap<Short, Integer> unmarshal() {
+        ByteBuf buf = new ByteBuf(packed);
+        buf.readString();
+        buf.readInt();
+        buf.readInt();
+        buf.readInt();
+        return buf.readIntMap();
+    }
+
+    @Benchmark
+    public byte[] hmacSign() throws Exception {
+        return Utils.hmacSign(AccessToken2Benchmark.APP_CERTIFICATE, payload);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return Utils.compress(payload);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return Utils.decompress(compressed);
+    }
+
+    @Benchmark
+    public String base64Encode() {
+        return Utils.base64Encode(compressed);
+    }
+
+    @Benchmark
+    public byte[] base64Decode() {
+        return Utils.base64Decode(encoded);
+    }
+
+    @Benchmark
+    public int crc32() {
+        return Utils.crc32(AccessToken2Benchmark.CHANNEL_NAME);
+    }
+}
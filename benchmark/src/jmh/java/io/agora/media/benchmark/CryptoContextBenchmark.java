@@ -0,0 +1,115 @@
+package io.agora.media.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.agora.media.Utils;
+
+/**
+ * Per-thread reused Mac/MessageDigest/Deflater/Inflater in Utils against the previous
+ * instantiate-per-call code, which is reproduced in the legacy* methods.
+ * Run with -t 4 or more to see the provider lookup contention.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CryptoContextBenchmark {
+    private byte[] payload;
+    private byte[] compressed;
+
+    @Setup
+    public void setup() {
+        payload = new byte[160];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 17);
+        }
+        compressed = Utils.compress(payload);
+    }
+
+    @Benchmark
+    public byte[] hmacSign() throws Exception {
+        return Utils.hmacSign(AccessToken2Benchmark.APP_CERTIFICATE, payload);
+    }
+
+    @Benchmark
+    public byte[] legacyHmacSign() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(AccessToken2Benchmark.APP_CERTIFICATE.getBytes(), "HmacSHA256"));
+        return mac.doFinal(payload);
+    }
+
+    @Benchmark
+    public String md5() {
+        return Utils.md5(AccessToken2Benchmark.CHANNEL_NAME);
+    }
+
+    @Benchmark
+    public String legacyMd5() throws Exception {
+        byte[] secretBytes = MessageDigest.getInstance("md5").digest(AccessToken2Benchmark.CHANNEL_NAME.getBytes());
+        String md5code = new BigInteger(1, secretBytes).toString(16);
+        for (int i = 0; i < 32 - md5code.length(); i++) {
+            md5code = "0" + md5code;
+        }
+        return md5code;
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return Utils.compress(payload);
+    }
+
+    @Benchmark
+    public byte[] legacyCompress() {
+        Deflater deflater = new Deflater();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(payload.length);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            byte[] buf = new byte[payload.length];
+            while (!deflater.finished()) {
+                int i = deflater.deflate(buf);
+                bos.write(buf, 0, i);
+            }
+            return bos.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return Utils.decompress(compressed);
+    }
+
+    @Benchmark
+    public byte[] legacyDecompress() throws Exception {
+        Inflater inflater = new Inflater();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(compressed.length);
+        try {
+            inflater.setInput(compressed);
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = inflater.inflate(buf)) > 0) {
+                bos.write(buf, 0, len);
+            }
+            return bos.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.agora.media.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.agora.media.RtcTokenBuilder2;
+
+/**
+ * Minting tokens for a whole room: a buildTokenWithUid loop against the batch API, serial and on a ForkJoinPool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RoomTokenBenchmark {
+    @Param({"50", "500"})
+    public int participants;
+
+    private final RtcTokenBuilder2 builder = new RtcTokenBuilder2();
+    private int[] uids;
+    private RtcTokenBuilder2.Role[] roles;
+
+    @Setup
+    public void setup() {
+        uids = new int[participants];
+        roles = new RtcTokenBuilder2.Role[participants];
+        for (int i = 0; i < participants; i++) {
+            uids[i] = 10000 + i;
+            roles[i] = RtcTokenBuilder2.Role.ROLE_PUBLISHER;
+        }
+    }
+
+    @Benchmark
+    public String[] loop() {
+        String[] tokens = new String[uids.length];
+        for (int i = 0; i < uids.length; i++) {
+            tokens[i] = builder.buildTokenWithUid(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                    AccessToken2Benchmark.CHANNEL_NAME, uids[i], roles[i], AccessToken2Benchmark.EXPIRE, AccessToken2Benchmark.EXPIRE);
+        }
+        return tokens;
+    }
+
+    @Benchmark
+    public String[] batch() {
+        return builder.buildTokensWithUid(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.CHANNEL_NAME, uids, roles, AccessToken2Benchmark.EXPIRE, AccessToken2Benchmark.EXPIRE, null);
+    }
+
+    @Benchmark
+    public String[] batchParallel() {
+        return builder.buildTokensWithUid(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.CHANNEL_NAME, uids, roles, AccessToken2Benchmark.EXPIRE, AccessToken2Benchmark.EXPIRE,
+                ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,48 @@
+package io.agora.media.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.agora.media.RtcTokenBuilder;
+import io.agora.media.RtcTokenBuilder2;
+import io.agora.media.TokenVerifier;
+
+/**
+ * Verification throughput for 006 and 007 tokens; run with -t to measure the shared verifier under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TokenVerifierBenchmark {
+    private TokenVerifier verifier;
+    private String token;
+    private String legacyToken;
+
+    @Setup
+    public void setup() {
+        verifier = new TokenVerifier(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE);
+        token = new RtcTokenBuilder2().buildTokenWithUid(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.CHANNEL_NAME, AccessToken2Benchmark.UID, RtcTokenBuilder2.Role.ROLE_PUBLISHER,
+                3600, 3600);
+        legacyToken = new RtcTokenBuilder().buildTokenWithUid(AccessToken2Benchmark.APP_ID, AccessToken2Benchmark.APP_CERTIFICATE,
+                AccessToken2Benchmark.CHANNEL_NAME, AccessToken2Benchmark.UID, RtcTokenBuilder.Role.Role_Publisher,
+                Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public TokenVerifier.Result verify() {
+        return verifier.verify(token, AccessToken2Benchmark.CHANNEL_NAME, AccessToken2Benchmark.ACCOUNT);
+    }
+
+    @Benchmark
+    public TokenVerifier.Result verifyLegacy() {
+        return verifier.verify(legacyToken, AccessToken2Benchmark.CHANNEL_NAME, AccessToken2Benchmark.ACCOUNT);
+    }
+}
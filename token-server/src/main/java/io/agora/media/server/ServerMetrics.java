@@ -0,0 +1,70 @@
+package io.agora.media.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.agora.media.TokenCache;
+
+/**
+ * Request counters and a log2 latency histogram, rendered as plain text on /metrics.
+ */
+final class ServerMetrics {
+    // Bucket i counts latencies in [2^i, 2^(i+1)) microseconds
+    private static final int BUCKETS = 32;
+
+    final LongAdder requests = new LongAdder();
+    final LongAdder tokensIssued = new LongAdder();
+    final LongAdder errors = new LongAdder();
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+    private final LongAdder latencyTotalMicros = new LongAdder();
+
+    void recordLatency(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        latency.incrementAndGet(bucket);
+        latencyTotalMicros.add(micros);
+    }
+
+    // Upper bound of the bucket holding the given percentile, in microseconds
+    long percentileMicros(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += latency.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += latency.get(i);
+            if (seen >= rank) {
+                return 1L << (i + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+
+    String render(TokenCache cache) {
+        long count = requests.sum();
+        double uptimeSeconds = (System.nanoTime() - startNanos) / 1e9;
+        StringBuilder out = new StringBuilder(512);
+        out.append("uptime_seconds ").append(String.format("%.1f", uptimeSeconds)).append('\n');
+        out.append("requests_total ").append(count).append('\n');
+        out.append("requests_per_second ").append(String.format("%.1f", count / Math.max(uptimeSeconds, 1e-3))).append('\n');
+        out.append("tokens_issued_total ").append(tokensIssued.sum()).append('\n');
+        out.append("cache_entries ").append(cache.size()).append('\n');
+        out.append("cache_hits_total ").append(cache.getHitCount()).append('\n');
+        out.append("cache_misses_total ").append(cache.getMissCount()).append('\n');
+        out.append("cache_refreshes_total ").append(cache.getRefreshCount()).append('\n');
+        out.append("cache_evictions_total ").append(cache.getEvictionCount()).append('\n');
+        out.append("errors_total ").append(errors.sum()).append('\n');
+        out.append("latency_mean_us ").append(count == 0 ? 0 : latencyTotalMicros.sum() / count).append('\n');
+        out.append("latency_p50_us ").append(percentileMicros(50)).append('\n');
+        out.append("latency_p99_us ").append(percentileMicros(99)).append('\n');
+        out.append("latency_p999_us ").append(percentileMicros(99.9)).append('\n');
+        return out.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package io.agora.media.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives a running {@link TokenServer} from keep-alive connections and prints throughput and latency.
+ * <p>
+ * Arguments: url, concurrent clients, total requests, uids per request.
+ */
+public class TokenLoadTest {
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080" + TokenServer.TOKEN_PATH);
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+        int batch = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            pool.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests) {
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body(i, batch)))
+                            .build();
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - t0;
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("requests=%d tokens=%d failures=%d seconds=%.2f%n", requests, (long) requests * batch, failures.get(), seconds);
+        System.out.printf("throughput=%.0f req/s, %.0f tokens/s%n", requests / seconds, requests * batch / seconds);
+        System.out.printf("latency p50=%dus p99=%dus max=%dus%n",
+                latencies[requests / 2] / 1000, latencies[(int) (requests * 0.99)] / 1000, latencies[requests - 1] / 1000);
+    }
+
+    // Distinct uids per request so the run measures minting rather than the response cache
+    private static String body(int index, int batch) {
+        if (batch == 1) {
+            return "{\"uid\": " + (index + 1) + "}";
+        }
+        StringBuilder body = new StringBuilder("{\"uids\": [");
+        for (int j = 0; j < batch; j++) {
+            if (j > 0) {
+                body.append(',');
+            }
+            body.append((long) index * batch + j + 1);
+        }
+        return body.append("]}").toString();
+    }
+}
@@ -0,0 +1,212 @@
+package io.agora.media.server;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import io.agora.media.RtcTokenBuilder2;
+
+/**
+ * Parameters of a token request, read from the query string and/or a flat JSON body such as
+ * {@code {"uid": 1001}} or {@code {"uids": [1001, 1002], "channel": "HoneyFamily", "role": "subscriber"}}.
+ * <p>
+ * An {@code expire} may shorten the token lifetime but never extend it beyond the server default;
+ * values outside 1..default are rejected like any other malformed input.
+ */
+final class TokenRequest {
+    String channelName;
+    int[] uids = new int[0];
+    RtcTokenBuilder2.Role role = RtcTokenBuilder2.Role.ROLE_PUBLISHER;
+    int expire;
+    private final int maxExpire;
+    // Set by the "uids" form, which is always answered with a JSON map even for a single uid
+    private boolean batch;
+
+    TokenRequest(String defaultChannelName, int defaultExpire) {
+        this.channelName = defaultChannelName;
+        this.expire = defaultExpire;
+        this.maxExpire = defaultExpire;
+    }
+
+    boolean isBatch() {
+        return batch;
+    }
+
+    void parseQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            String value = URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            set(pair.substring(0, eq), value, value.split(","));
+        }
+    }
+
+    void parseJson(String body) {
+        new JsonScanner(body).readObject(this);
+    }
+
+    private void set(String key, String value, String[] list) {
+        switch (key) {
+            case "uid":
+                uids = new int[] {parseUid(value)};
+                batch = false;
+                break;
+            case "uids":
+                uids = new int[list.length];
+                for (int i = 0; i < list.length; i++) {
+                    uids[i] = parseUid(list[i]);
+                }
+                batch = true;
+                break;
+            case "channel":
+            case "channelName":
+                channelName = value;
+                break;
+            case "role":
+                role = "subscriber".equalsIgnoreCase(value) || "2".equals(value)
+                        ? RtcTokenBuilder2.Role.ROLE_SUBSCRIBER : RtcTokenBuilder2.Role.ROLE_PUBLISHER;
+                break;
+            case "expire":
+                expire = Integer.parseInt(value.trim());
+                if (expire <= 0 || expire > maxExpire) {
+                    throw new IllegalArgumentException("expire must be between 1 and " + maxExpire);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // uids are 32-bit unsigned on the wire
+    private static int parseUid(String value) {
+        return (int) Long.parseLong(value.trim());
+    }
+
+    /**
+     * Just enough JSON for a flat object of strings, numbers and arrays of those.
+     */
+    private static final class JsonScanner {
+        private final String text;
+        private int pos;
+
+        JsonScanner(String text) {
+            this.text = text;
+        }
+
+        void readObject(TokenRequest request) {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                return;
+            }
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                return;
+            }
+            while (true) {
+                String key = readString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                if (peek() == '[') {
+                    String[] list = readArray();
+                    request.set(key, String.join(",", list), list);
+                } else {
+                    String value = readScalar();
+                    request.set(key, value, new String[] {value});
+                }
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                    skipWhitespace();
+                    continue;
+                }
+                expect('}');
+                return;
+            }
+        }
+
+        private String[] readArray() {
+            expect('[');
+            String[] values = new String[8];
+            int count = 0;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return new String[0];
+            }
+            while (true) {
+                skipWhitespace();
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = readScalar();
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                    continue;
+                }
+                expect(']');
+                return Arrays.copyOf(values, count);
+            }
+        }
+
+        private String readScalar() {
+            if (peek() == '"') {
+                return readString();
+            }
+            int start = pos;
+            while (pos < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            return text.substring(start, pos);
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (peek() != '"') {
+                char c = text.charAt(pos++);
+                if (c == '\\') {
+                    c = text.charAt(pos++);
+                    if (c == 'u') {
+                        c = (char) Integer.parseInt(text.substring(pos, pos + 4), 16);
+                        pos += 4;
+                    } else if (c == 'n') {
+                        c = '\n';
+                    } else if (c == 't') {
+                        c = '\t';
+                    }
+                }
+                value.append(c);
+            }
+            pos++;
+            return value.toString();
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("unexpected end of JSON");
+            }
+            return text.charAt(pos);
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw new IllegalArgumentException("expected '" + c + "' at " + pos);
+            }
+            pos++;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package io.agora.media.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.agora.media.AccessToken2;
+import io.agora.media.RtcTokenBuilder2;
+import io.agora.media.TokenCache;
+import io.agora.media.Utils;
+
+/**
+ * Local token issuing service wrapping {@link RtcTokenBuilder2}.
+ * <p>
+ * {@code POST /heima/token/getToken} with {@code {"uid": 1001}} answers the token as plain text, the
+ * contract html/agora-pc-web.html already uses. {@code {"uids": [1001, 1002, ...]}} (or
+ * {@code ?uids=1001,1002}) mints the whole list in one batch and answers a JSON object uid -> token, also
+ * when the list holds a single uid. An optional {@code expire} of 1 up to TOKEN_EXPIRE seconds shortens the
+ * lifetime; anything else is a 400.
+ * {@code GET /metrics} reports throughput, cache and latency figures.
+ * <p>
+ * Configuration comes from system properties or environment variables: AGORA_APP_ID,
+ * AGORA_APP_CERTIFICATE, TOKEN_SERVER_HOST (loopback), TOKEN_SERVER_PORT (8080), TOKEN_CHANNEL (HoneyFamily),
+ * TOKEN_EXPIRE (36000), TOKEN_SERVER_CORS_ORIGIN (unset).
+ * <p>
+ * Anyone who can reach the server can mint tokens for any channel and uid, so it binds to the loopback
+ * interface unless TOKEN_SERVER_HOST names another address, and sends no CORS headers unless
+ * TOKEN_SERVER_CORS_ORIGIN names the one origin (e.g. the page serving html/agora-pc-web.html) allowed to call it.
+ * <p>
+ * Requests run on a fixed pool of platform threads, one per core, and batches fan out on a pool of the
+ * same size, so the per-thread buffers and crypto state of the token library are reused across requests.
+ * Both pools release that state when their threads exit.
+ */
+public class TokenServer {
+    static final String TOKEN_PATH = "/heima/token/getToken";
+    static final String METRICS_PATH = "/metrics";
+    private static final int MAX_CACHED_TOKENS = 100_000;
+
+    private final String appId;
+    private final String appCertificate;
+    private final String defaultChannelName;
+    private final int defaultExpire;
+    private final RtcTokenBuilder2 builder = new RtcTokenBuilder2();
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final String corsOrigin;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ForkJoinPool batchPool;
+    private final TokenCache cache;
+
+    // Loopback only, no CORS
+    public TokenServer(String appId, String appCertificate, String defaultChannelName, int defaultExpire, int port) throws IOException {
+        this(appId, appCertificate, defaultChannelName, defaultExpire, InetAddress.getLoopbackAddress(), port, null);
+    }
+
+    /**
+     * @param bindAddress address to listen on; anything but loopback exposes minting to the network.
+     * @param corsOrigin  origin allowed to call the server from a browser, or null to send no CORS headers.
+     */
+    public TokenServer(String appId, String appCertificate, String defaultChannelName, int defaultExpire, InetAddress bindAddress,
+            int port, String corsOrigin) throws IOException {
+        if (!Utils.isUUID(appId) || !Utils.isUUID(appCertificate)) {
+            throw new IllegalArgumentException("AGORA_APP_ID and AGORA_APP_CERTIFICATE must be 32 hex characters");
+        }
+        this.appId = appId;
+        this.appCertificate = appCertificate;
+        this.defaultChannelName = defaultChannelName;
+        this.defaultExpire = defaultExpire;
+        this.corsOrigin = corsOrigin;
+
+        // HttpServer keeps HTTP/1.1 connections alive as long as every response has a known length
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(threads, new ReleasingThreadFactory());
+        this.batchPool = new ForkJoinPool(threads, ReleasingWorkerThread::new, null, false);
+        server.setExecutor(executor);
+        // Serve a token while a quarter of its lifetime is left, re-mint once half of it is gone
+        this.cache = new TokenCache(MAX_CACHED_TOKENS, defaultExpire / 4, defaultExpire / 2, executor);
+        server.createContext(TOKEN_PATH, this::handleToken);
+        server.createContext(METRICS_PATH, this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        batchPool.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+            batchPool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Request threads live as long as the pool; free their token library state when they exit
+    private static final class ReleasingThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            return new Thread(() -> {
+                try {
+                    task.run();
+                } finally {
+                    Utils.releaseThreadResources();
+                }
+            }, "token-request-" + count.incrementAndGet());
+        }
+    }
+
+    private static final class ReleasingWorkerThread extends ForkJoinWorkerThread {
+        ReleasingWorkerThread(ForkJoinPool pool) {
+            super(pool);
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            Utils.releaseThreadResources();
+            super.onTermination(exception);
+        }
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        metrics.requests.increment();
+        try {
+            if (corsOrigin != null) {
+                addCorsHeaders(exchange.getResponseHeaders(), corsOrigin);
+            }
+            String method = exchange.getRequestMethod();
+            if ("OPTIONS".equals(method)) {
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+            if (!"POST".equals(method) && !"GET".equals(method)) {
+                send(exchange, 405, "text/plain", "method not allowed");
+                return;
+            }
+
+            TokenRequest request = new TokenRequest(defaultChannelName, defaultExpire);
+            try {
+                request.parseQuery(exchange.getRequestURI().getRawQuery());
+                request.parseJson(readBody(exchange.getRequestBody()));
+            } catch (RuntimeException e) {
+                metrics.errors.increment();
+                send(exchange, 400, "text/plain", "bad request: " + e.getMessage());
+                return;
+            }
+            if (request.uids.length == 0) {
+                metrics.errors.increment();
+                send(exchange, 400, "text/plain", "uid or uids is required");
+                return;
+            }
+
+            String[] tokens = mint(request);
+            if (!request.isBatch()) {
+                send(exchange, 200, "text/plain", tokens[0]);
+                return;
+            }
+
+            StringBuilder json = new StringBuilder(tokens.length * 200);
+            json.append('{');
+            for (int i = 0; i < tokens.length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append('"').append(AccessToken2.getUidStr(request.uids[i])).append("\":\"").append(tokens[i]).append('"');
+            }
+            json.append('}');
+            send(exchange, 200, "application/json", json.toString());
+        } catch (IOException | RuntimeException e) {
+            metrics.errors.increment();
+            throw e;
+        } finally {
+            exchange.close();
+            metrics.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    // Serve still-valid tokens from the cache and mint the rest in one batch
+    private String[] mint(TokenRequest request) {
+        int count = request.uids.length;
+        if (count == 1) {
+            int uid = request.uids[0];
+            // Also used for background refreshes of this key
+            Supplier<String> minter = () -> {
+                metrics.tokensIssued.increment();
+                return builder.buildTokenWithUid(appId, appCertificate, request.channelName, uid, request.role,
+                        request.expire, request.expire);
+            };
+            return new String[] {cache.get(TokenCache.Key.rtc(appId, request.channelName, uid, request.role, request.expire), minter)};
+        }
+
+        String[] tokens = new String[count];
+        TokenCache.Key[] keys = new TokenCache.Key[count];
+        int misses = 0;
+        for (int i = 0; i < count; i++) {
+            keys[i] = TokenCache.Key.rtc(appId, request.channelName, request.uids[i], request.role, request.expire);
+            tokens[i] = cache.get(keys[i]);
+            if (tokens[i] == null) {
+                misses++;
+            }
+        }
+        if (misses == 0) {
+            return tokens;
+        }
+
+        int[] missingUids = new int[misses];
+        RtcTokenBuilder2.Role[] roles = new RtcTokenBuilder2.Role[misses];
+        for (int i = 0, j = 0; i < count; i++) {
+            if (tokens[i] == null) {
+                missingUids[j] = request.uids[i];
+                roles[j++] = request.role;
+            }
+        }
+
+        String[] minted = builder.buildTokensWithUid(appId, appCertificate, request.channelName, missingUids, roles,
+                request.expire, request.expire, batchPool);
+        metrics.tokensIssued.add(misses);
+        for (int i = 0, j = 0; i < count; i++) {
+            if (tokens[i] == null) {
+                tokens[i] = minted[j++];
+                cache.put(keys[i], tokens[i]);
+            }
+        }
+        return tokens;
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, "text/plain", metrics.render(cache));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void addCorsHeaders(Headers headers, String origin) {
+        headers.set("Access-Control-Allow-Origin", origin);
+        headers.set("Vary", "Origin");
+        headers.set("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
+        headers.set("Access-Control-Allow-Headers", "Content-Type");
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        int len;
+        while ((len = in.read(buf)) > 0) {
+            body.write(buf, 0, len);
+        }
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static String config(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            value = System.getenv(name);
+        }
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    public static void main(String[] args) throws IOException {
+        TokenServer server = new TokenServer(
+                config("AGORA_APP_ID", ""),
+                config("AGORA_APP_CERTIFICATE", ""),
+                config("TOKEN_CHANNEL", "HoneyFamily"),
+                Integer.parseInt(config("TOKEN_EXPIRE", "36000")),
+                InetAddress.getByName(config("TOKEN_SERVER_HOST", InetAddress.getLoopbackAddress().getHostAddress())),
+                Integer.parseInt(config("TOKEN_SERVER_PORT", "8080")),
+                config("TOKEN_SERVER_CORS_ORIGIN", null));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println("Token server listening on http://" + server.getAddress().getHostString() + ":"
+                + server.getPort() + TOKEN_PATH);
+    }
+}
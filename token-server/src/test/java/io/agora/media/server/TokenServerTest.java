@@ -0,0 +1,117 @@
+package io.agora.media.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import io.agora.media.TokenVerifier;
+
+import static org.junit.Assert.*;
+
+public class TokenServerTest {
+    private static final String APP_ID = "970CA35de60c44645bbae8a215061b33";
+    private static final String APP_CERTIFICATE = "5CFd2fd1755d40ecb72977518be15d3b";
+
+    private TokenServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new TokenServer(APP_ID, APP_CERTIFICATE, "HoneyFamily", 600, 0);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void getToken_singleAndBatch() throws IOException {
+        TokenVerifier verifier = new TokenVerifier(APP_ID, APP_CERTIFICATE);
+
+        String token = request("POST", TokenServer.TOKEN_PATH, "{\"uid\": 1001}");
+        assertEquals(TokenVerifier.Result.VALID, verifier.verify(token, "HoneyFamily", "1001"));
+        assertEquals(token, request("GET", TokenServer.TOKEN_PATH + "?uid=1001", null));
+
+        String batch = request("POST", TokenServer.TOKEN_PATH, "{\"uids\": [1001, 1002], \"channel\": \"room\"}");
+        assertTrue(batch.startsWith("{\"1001\":\"007"));
+        assertTrue(batch.contains("\"1002\":\"007"));
+
+        String metrics = request("GET", TokenServer.METRICS_PATH, null);
+        assertTrue(metrics, metrics.contains("cache_hits_total 1\n"));
+    }
+
+    @Test
+    public void getToken_responseFollowsRequestForm() throws IOException {
+        String batch = request("POST", TokenServer.TOKEN_PATH, "{\"uids\": [1001]}");
+        assertTrue(batch, batch.startsWith("{\"1001\":\"007"));
+        assertTrue(request("GET", TokenServer.TOKEN_PATH + "?uid=1001&expire=60", null).startsWith("007"));
+    }
+
+    @Test
+    public void getToken_rejectsExpireOutsideDefault() throws IOException {
+        assertEquals(400, status(TokenServer.TOKEN_PATH, "{\"uid\": 1001, \"expire\": 0}"));
+        assertEquals(400, status(TokenServer.TOKEN_PATH, "{\"uid\": 1001, \"expire\": -5}"));
+        assertEquals(400, status(TokenServer.TOKEN_PATH, "{\"uids\": [1001], \"expire\": 601}"));
+    }
+
+    @Test
+    public void defaults_loopbackWithoutCors() throws IOException {
+        assertTrue(server.getAddress().getAddress().isLoopbackAddress());
+        assertNull(connect("OPTIONS", TokenServer.TOKEN_PATH).getHeaderField("Access-Control-Allow-Origin"));
+
+        TokenServer cors = new TokenServer(APP_ID, APP_CERTIFICATE, "HoneyFamily", 600, InetAddress.getLoopbackAddress(), 0,
+                "http://localhost:5500");
+        cors.start();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + cors.getPort()
+                    + TokenServer.TOKEN_PATH).openConnection();
+            connection.setRequestMethod("OPTIONS");
+            assertEquals(204, connection.getResponseCode());
+            assertEquals("http://localhost:5500", connection.getHeaderField("Access-Control-Allow-Origin"));
+        } finally {
+            cors.stop();
+        }
+    }
+
+    private HttpURLConnection connect(String method, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.getResponseCode();
+        return connection;
+    }
+
+    private int status(String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection.getResponseCode();
+    }
+
+    private String request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(200, connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
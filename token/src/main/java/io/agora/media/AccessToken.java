@@ -1,7 +1,7 @@
 package io.agora.media;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.TreeMap;
 
 import static io.agora.media.Utils.crc32;
@@ -24,6 +24,8 @@ public class AccessToken {
     }
 
     private static final String VER = "006";
+    // Typical length of a token, used to presize the builder
+    private static final int TOKEN_LENGTH_HINT = 160;
     
     public String appId;
     public String appCertificate;
@@ -46,13 +48,44 @@ public class AccessToken {
         this.message = new PrivilegeMessage();
     }
 
+    // For parse(): every field is read from the token, so no salt is drawn
+    private AccessToken() {
+        this.message = new PrivilegeMessage(0, 0);
+    }
+
     public String build() throws Exception {
+        StringBuilder token = new StringBuilder(TOKEN_LENGTH_HINT);
+        buildTo(token);
+        return token.toString();
+    }
+
+    /**
+     * Write the token produced by {@link #build()} to {@code out}, base64-encoding incrementally
+     * without materializing the packed bytes or the token String.
+     * Nothing is written when appId or appCertificate is invalid.
+     */
+    public void buildTo(OutputStream out) throws Exception {
+        buildTo(TokenSink.of(out));
+    }
+
+    /**
+     * Same as {@link #buildTo(OutputStream)}; throws BufferOverflowException if {@code out} runs out of space.
+     */
+    public void buildTo(ByteBuffer out) throws Exception {
+        buildTo(TokenSink.of(out));
+    }
+
+    public void buildTo(Appendable out) throws Exception {
+        buildTo(TokenSink.of(out));
+    }
+
+    private void buildTo(TokenSink sink) throws Exception {
         if (! Utils.isUUID(appId)) {
-            return "";
+            return;
         }
 
         if (!Utils.isUUID(appCertificate)) {
-            return "";
+            return;
         }
 
         messageRawContent = Utils.pack(message);
@@ -62,8 +95,17 @@ public class AccessToken {
         crcUid = crc32(uid);
 
         PackContent packContent = new PackContent(signature, crcChannelName, crcUid, messageRawContent);
-        byte[] content = Utils.pack(packContent);
-        return getVersion() + this.appId + Utils.base64Encode(content);
+        ByteBuf content = ByteBuf.acquire();
+        try {
+            packContent.marshal(content);
+            sink.write(getVersion());
+            sink.write(this.appId);
+            Base64Writer base64 = new Base64Writer(sink);
+            base64.write(content.array(), 0, content.length());
+            base64.finish();
+        } finally {
+            content.release();
+        }
     }
 
     public void addPrivilege(Privileges privilege, int expireTimestamp) {
@@ -77,16 +119,29 @@ public class AccessToken {
     public static byte[] generateSignature(String appCertificate, 
     		String appID, String channelName, String uid, byte[] message) throws Exception {
     	
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteBuf buf = ByteBuf.acquire();
         try {
-            baos.write(appID.getBytes());
-            baos.write(channelName.getBytes());
-            baos.write(uid.getBytes());
-            baos.write(message);
-        } catch (IOException e) {
-            e.printStackTrace();
+            byte[] appIdBytes = appID.getBytes();
+            byte[] channelNameBytes = channelName.getBytes();
+            byte[] uidBytes = uid.getBytes();
+            buf.putRaw(appIdBytes, 0, appIdBytes.length)
+                    .putRaw(channelNameBytes, 0, channelNameBytes.length)
+                    .putRaw(uidBytes, 0, uidBytes.length)
+                    .putRaw(message, 0, message.length);
+            return Utils.hmacSign(appCertificate, buf.asBytes());
+        } finally {
+            buf.release();
         }
-        return Utils.hmacSign(appCertificate, baos.toByteArray());
+    }
+
+    /**
+     * Parse a 006 token into a read-only instance without the builder setup (no SecureRandom salt).
+     *
+     * @return the parsed token, or null if it is malformed.
+     */
+    public static AccessToken parse(String token) {
+        AccessToken accessToken = new AccessToken();
+        return accessToken.fromString(token) ? accessToken : null;
     }
 
     public boolean fromString(String token) {
@@ -117,8 +172,12 @@ public class AccessToken {
         public TreeMap<Short, Integer> messages;
 
         public PrivilegeMessage() {
-            salt = Utils.randomInt();
-            ts = Utils.getTimestamp() + 24 * 3600;
+            this(Utils.randomInt(), Utils.getTimestamp() + 24 * 3600);
+        }
+
+        PrivilegeMessage(int salt, int ts) {
+            this.salt = salt;
+            this.ts = ts;
             messages = new TreeMap<>();
         }
 
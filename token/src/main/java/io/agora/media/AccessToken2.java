@@ -1,9 +1,10 @@
 package io.agora.media;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.TreeMap;
 import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 
 public class AccessToken2 {
     public enum PrivilegeRtc {
@@ -57,6 +58,8 @@ public class AccessToken2 {
     }
 
     private static final String VERSION = "007";
+    // Typical length of an RTC token, used to presize the builder
+    private static final int TOKEN_LENGTH_HINT = 256;
     public static final short SERVICE_TYPE_RTC = 1;
     public static final short SERVICE_TYPE_RTM = 2;
     public static final short SERVICE_TYPE_FPA = 4;
@@ -89,22 +92,69 @@ public class AccessToken2 {
             return "";
         }
 
-        ByteBuf buf = new ByteBuf().put(this.appId).put(this.issueTs).put(this.expire).put(this.salt).put((short) this.services.size());
-        byte[] signing = getSign();
+        return build(getSign());
+    }
+
+    /**
+     * Write the token produced by {@link #build()} to {@code out}, deflating and base64-encoding
+     * incrementally without materializing the compressed bytes or the token String.
+     * Nothing is written when appId or appCert is invalid.
+     */
+    public void buildTo(OutputStream out) throws Exception {
+        buildTo(TokenSink.of(out));
+    }
+
+    /**
+     * Same as {@link #buildTo(OutputStream)}; throws BufferOverflowException if {@code out} runs out of space.
+     */
+    public void buildTo(ByteBuffer out) throws Exception {
+        buildTo(TokenSink.of(out));
+    }
+
+    public void buildTo(Appendable out) throws Exception {
+        buildTo(TokenSink.of(out));
+    }
+
+    private void buildTo(TokenSink sink) throws Exception {
+        if (!Utils.isUUID(this.appId) || !Utils.isUUID(this.appCert)) {
+            return;
+        }
+
+        buildTo(sink, getSign());
+    }
+
+    // Serialize and sign with a signing key already derived for this issueTs and salt, see getSign()
+    String build(byte[] signing) throws Exception {
+        StringBuilder token = new StringBuilder(TOKEN_LENGTH_HINT);
+        buildTo(TokenSink.of(token), signing);
+        return token.toString();
+    }
+
+    private void buildTo(TokenSink sink, byte[] signing) throws Exception {
+        ByteBuf buf = ByteBuf.acquire();
+        ByteBuf bufferContent = ByteBuf.acquire();
+        try {
+            buf.put(this.appId).put(this.issueTs).put(this.expire).put(this.salt).put((short) this.services.size());
 
-        this.services.forEach((k, v) -> {
-            v.pack(buf);
-        });
+            for (Service service : this.services.values()) {
+                service.pack(buf);
+            }
 
-        Mac mac = Mac.getInstance("HmacSHA256");
-        mac.init(new SecretKeySpec(signing, "HmacSHA256"));
-        byte[] signature = mac.doFinal(buf.asBytes());
+            Mac mac = CryptoContext.get().hmac(signing);
+            mac.update(buf.array(), 0, buf.length());
+            byte[] signature = mac.doFinal();
 
-        ByteBuf bufferContent = new ByteBuf();
-        bufferContent.put(signature);
-        bufferContent.buffer.put(buf.asBytes());
+            bufferContent.put(signature);
+            bufferContent.putRaw(buf.array(), 0, buf.length());
 
-        return getVersion() + Utils.base64Encode(Utils.compress(bufferContent.asBytes()));
+            sink.write(getVersion());
+            Base64Writer base64 = new Base64Writer(sink);
+            Utils.compressTo(bufferContent.array(), 0, bufferContent.length(), base64);
+            base64.finish();
+        } finally {
+            bufferContent.release();
+            buf.release();
+        }
     }
 
     public Service getService(short serviceType) {
@@ -127,11 +177,26 @@ public class AccessToken2 {
     }
 
     public byte[] getSign() throws Exception {
-        Mac mac = Mac.getInstance("HmacSHA256");
-        mac.init(new SecretKeySpec(new ByteBuf().put(this.issueTs).asBytes(), "HmacSHA256"));
-        byte[] signing = mac.doFinal(this.appCert.getBytes());
-        mac.init(new SecretKeySpec(new ByteBuf().put(this.salt).asBytes(), "HmacSHA256"));
-        return mac.doFinal(signing);
+        return getSign(getIssueKey(this.appCert, this.issueTs), this.salt);
+    }
+
+    // First step of getSign(): depends only on the certificate and issueTs
+    static byte[] getIssueKey(String appCert, int issueTs) throws Exception {
+        return CryptoContext.get().hmac(uint32(issueTs)).doFinal(appCert.getBytes());
+    }
+
+    // Second step of getSign(): mixes the salt into the key from getIssueKey()
+    static byte[] getSign(byte[] issueKey, int salt) throws Exception {
+        return CryptoContext.get().hmac(uint32(salt)).doFinal(issueKey);
+    }
+
+    private static byte[] uint32(int v) {
+        ByteBuf buf = ByteBuf.acquire();
+        try {
+            return buf.put(v).asBytes();
+        } finally {
+            buf.release();
+        }
     }
 
     public static String getUidStr(int uid) {
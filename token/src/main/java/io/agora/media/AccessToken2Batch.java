@@ -0,0 +1,112 @@
+package io.agora.media;
+
+import java.security.SecureRandom;
+
+/**
+ * Mints a batch of 007 tokens that share appId, appCertificate and issueTs, e.g. every participant
+ * of a room. The token expire is not part of the signing key, so {@link #newToken(int)} can give
+ * each token its own.
+ * <p>
+ * {@link AccessToken2#getSign()} chains HMAC(issueTs, appCertificate) and HMAC(salt, ...) before the
+ * payload signature. The first step only depends on the certificate and the second, so the batch
+ * derives it once. Each token then costs the salt HMAC, the payload HMAC and serialization. With
+ * {@code shareSalt} the salt step is also done once and a token costs a single HMAC, at the price
+ * of every token in the batch carrying the same salt.
+ * <p>
+ * Instances are immutable apart from their random source and can be shared across threads.
+ */
+public class AccessToken2Batch {
+    private final String appId;
+    private final String appCert;
+    private final int expire;
+    private final int issueTs;
+    private final boolean valid;
+    private final SecureRandom random = new SecureRandom();
+
+    private final byte[] issueKey;
+    private final boolean shareSalt;
+    private final int salt;
+    private final byte[] sharedSign;
+
+    public AccessToken2Batch(String appId, String appCert, int expire) {
+        this(appId, appCert, expire, false);
+    }
+
+    /**
+     * @param shareSalt use one salt for every token in the batch so only the payload HMAC remains per token.
+     */
+    public AccessToken2Batch(String appId, String appCert, int expire, boolean shareSalt) {
+        this.appId = appId;
+        this.appCert = appCert;
+        this.expire = expire;
+        this.issueTs = Utils.getTimestamp();
+        this.valid = Utils.isUUID(appId) && Utils.isUUID(appCert);
+        this.shareSalt = shareSalt;
+        this.salt = random.nextInt();
+
+        byte[] issueKey = null;
+        byte[] sharedSign = null;
+        if (valid) {
+            try {
+                issueKey = AccessToken2.getIssueKey(appCert, issueTs);
+                if (shareSalt) {
+                    sharedSign = AccessToken2.getSign(issueKey, salt);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        this.issueKey = issueKey;
+        this.sharedSign = sharedSign;
+    }
+
+    public int getIssueTs() {
+        return issueTs;
+    }
+
+    /**
+     * A token carrying this batch's appId, expire, issueTs and salt, to which services can be added
+     * before passing it to {@link #build(AccessToken2)}.
+     */
+    public AccessToken2 newToken() {
+        return newToken(expire);
+    }
+
+    /**
+     * Same as {@link #newToken()} with its own token expire, in seconds after the batch issueTs.
+     */
+    public AccessToken2 newToken(int expire) {
+        AccessToken2 accessToken = new AccessToken2();
+        accessToken.appId = appId;
+        accessToken.appCert = appCert;
+        accessToken.expire = expire;
+        accessToken.issueTs = issueTs;
+        accessToken.salt = shareSalt ? salt : random.nextInt();
+        return accessToken;
+    }
+
+    public String build(AccessToken2.Service... services) throws Exception {
+        AccessToken2 accessToken = newToken();
+        for (AccessToken2.Service service : services) {
+            accessToken.addService(service);
+        }
+        return build(accessToken);
+    }
+
+    /**
+     * Build a token obtained from {@link #newToken()}.
+     *
+     * @return the token, or "" when appId or appCertificate is invalid, like {@link AccessToken2#build()}.
+     */
+    public String build(AccessToken2 accessToken) throws Exception {
+        if (!valid) {
+            return "";
+        }
+        if (accessToken.issueTs != issueTs || !appCert.equals(accessToken.appCert)) {
+            throw new IllegalArgumentException("token was not created by this batch");
+        }
+
+        byte[] sign = shareSalt && accessToken.salt == salt ? sharedSign : AccessToken2.getSign(issueKey, accessToken.salt);
+        return accessToken.build(sign);
+    }
+}
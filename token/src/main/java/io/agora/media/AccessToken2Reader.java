@@ -0,0 +1,360 @@
+package io.agora.media;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Flyweight reader for 007 tokens.
+ * <p>
+ * {@link #wrap(String)} inflates the token into a buffer owned by the reader and records
+ * field offsets only; nothing is copied out per field and privileges are not boxed into maps.
+ * Integer fields are read straight from the buffer, string fields are only materialized when
+ * their accessor is called. The reader is reusable but not thread-safe, keep one per thread.
+ * <p>
+ * The values returned are the same as those {@link AccessToken2#parse(String)} fills in.
+ */
+public class AccessToken2Reader {
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int INITIAL_SERVICES = 8;
+
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    private int signatureOffset;
+    private int signatureLength;
+    private int appIdOffset;
+    private int appIdLength;
+    private int issueTs;
+    private int expire;
+    private int salt;
+
+    private int serviceCount;
+    // Offset of each service's type field
+    private int[] serviceOffsets = new int[INITIAL_SERVICES];
+    // Offset of the first service-specific field, right after the privilege map
+    private int[] serviceFieldOffsets = new int[INITIAL_SERVICES];
+
+    /**
+     * Point the reader at a new token.
+     *
+     * @return false if the token is not a well-formed 007 token. Accessors must not be
+     * used after a failed wrap.
+     */
+    public boolean wrap(String token) {
+        if (token == null || !token.startsWith(AccessToken2.getVersion())) {
+            return false;
+        }
+
+        byte[] compressed;
+        try {
+            compressed = Utils.base64Decode(token.substring(Utils.VERSION_LENGTH));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return wrap(compressed, 0, compressed.length);
+    }
+
+    /**
+     * Point the reader at the deflated body of a 007 token, i.e. the bytes after the version
+     * prefix once base64 has been decoded.
+     */
+    public boolean wrap(byte[] compressed, int offset, int len) {
+        length = 0;
+        serviceCount = 0;
+        if (!inflate(compressed, offset, len)) {
+            return false;
+        }
+
+        try {
+            return index();
+        } catch (IndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    private boolean inflate(byte[] compressed, int offset, int len) {
+        Inflater inflater = CryptoContext.get().inflater;
+        inflater.reset();
+        inflater.setInput(compressed, offset, len);
+        try {
+            while (!inflater.finished()) {
+                if (length == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                int n = inflater.inflate(data, length, data.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+        } catch (DataFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean index() {
+        int pos = 0;
+        signatureLength = readUint16(pos);
+        signatureOffset = pos + 2;
+        pos = skipString(pos);
+
+        appIdLength = readUint16(pos);
+        appIdOffset = pos + 2;
+        pos = skipString(pos);
+
+        issueTs = readInt(pos);
+        expire = readInt(pos + 4);
+        salt = readInt(pos + 8);
+        pos += 12;
+
+        int count = readUint16(pos);
+        pos += 2;
+        if (count > serviceOffsets.length) {
+            serviceOffsets = new int[count];
+            serviceFieldOffsets = new int[count];
+        }
+
+        for (int i = 0; i < count; i++) {
+            serviceOffsets[i] = pos;
+            short type = readShort(pos);
+            pos += 2;
+            int privileges = readUint16(pos);
+            pos += 2 + privileges * 6;
+            serviceFieldOffsets[i] = pos;
+
+            switch (type) {
+                case AccessToken2.SERVICE_TYPE_RTC:
+                    pos = skipString(skipString(pos));
+                    break;
+                case AccessToken2.SERVICE_TYPE_RTM:
+                case AccessToken2.SERVICE_TYPE_CHAT:
+                    pos = skipString(pos);
+                    break;
+                case AccessToken2.SERVICE_TYPE_FPA:
+                    break;
+                case AccessToken2.SERVICE_TYPE_APAAS:
+                    pos = skipString(skipString(pos)) + 2;
+                    break;
+                default:
+                    return false;
+            }
+            if (pos > length) {
+                return false;
+            }
+        }
+        serviceCount = count;
+        return true;
+    }
+
+    public String getAppId() {
+        return new String(data, appIdOffset, appIdLength);
+    }
+
+    public boolean appIdEquals(String appId) {
+        return stringEquals(appIdOffset, appIdLength, appId);
+    }
+
+    public int getIssueTs() {
+        return issueTs;
+    }
+
+    public int getExpire() {
+        return expire;
+    }
+
+    /**
+     * Seconds after issueTs at which the token or any of its privileges expires first, or 0 if
+     * nothing in it expires. Renewal has to happen before this point, not just before
+     * {@link #getExpire()}.
+     */
+    public int getEarliestExpire() {
+        int earliest = expire;
+        for (int i = 0; i < serviceCount; i++) {
+            int count = getPrivilegeCount(i);
+            for (int j = 0; j < count; j++) {
+                int privilegeExpire = getPrivilegeExpire(i, j);
+                if (privilegeExpire != 0 && (earliest == 0 || privilegeExpire < earliest)) {
+                    earliest = privilegeExpire;
+                }
+            }
+        }
+        return earliest;
+    }
+
+    public int getSalt() {
+        return salt;
+    }
+
+    public int getServiceCount() {
+        return serviceCount;
+    }
+
+    public short getServiceType(int index) {
+        checkService(index);
+        return readShort(serviceOffsets[index]);
+    }
+
+    // Position of the service in this token, or -1 if absent
+    public int indexOfService(short serviceType) {
+        for (int i = 0; i < serviceCount; i++) {
+            if (readShort(serviceOffsets[i]) == serviceType) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getPrivilegeCount(int index) {
+        checkService(index);
+        return readUint16(serviceOffsets[index] + 2);
+    }
+
+    public short getPrivilegeKey(int index, int privilege) {
+        return readShort(privilegeOffset(index, privilege));
+    }
+
+    public int getPrivilegeExpire(int index, int privilege) {
+        return readInt(privilegeOffset(index, privilege) + 2);
+    }
+
+    /**
+     * Expire value of a privilege, or {@code defaultValue} if the token does not carry it.
+     */
+    public int getPrivilege(short serviceType, short privilege, int defaultValue) {
+        int index = indexOfService(serviceType);
+        if (index < 0) {
+            return defaultValue;
+        }
+        int count = getPrivilegeCount(index);
+        for (int i = 0; i < count; i++) {
+            int offset = privilegeOffset(index, i);
+            if (readShort(offset) == privilege) {
+                return readInt(offset + 2);
+            }
+        }
+        return defaultValue;
+    }
+
+    // RTC channel name, or null if the token has no RTC service
+    public String getChannelName() {
+        int index = indexOfService(AccessToken2.SERVICE_TYPE_RTC);
+        return index < 0 ? null : readString(serviceFieldOffsets[index]);
+    }
+
+    public boolean channelNameEquals(String channelName) {
+        int index = indexOfService(AccessToken2.SERVICE_TYPE_RTC);
+        if (index < 0) {
+            return false;
+        }
+        int offset = serviceFieldOffsets[index];
+        return stringEquals(offset + 2, readUint16(offset), channelName);
+    }
+
+    // RTC uid/account, or null if the token has no RTC service
+    public String getUid() {
+        int index = indexOfService(AccessToken2.SERVICE_TYPE_RTC);
+        return index < 0 ? null : readString(skipString(serviceFieldOffsets[index]));
+    }
+
+    public boolean uidEquals(String uid) {
+        int index = indexOfService(AccessToken2.SERVICE_TYPE_RTC);
+        if (index < 0) {
+            return false;
+        }
+        int offset = skipString(serviceFieldOffsets[index]);
+        return stringEquals(offset + 2, readUint16(offset), uid);
+    }
+
+    // Raw view used by the verifier: the signature and the signed bytes that follow it
+    byte[] data() {
+        return data;
+    }
+
+    int signatureOffset() {
+        return signatureOffset;
+    }
+
+    int signatureLength() {
+        return signatureLength;
+    }
+
+    int payloadOffset() {
+        return appIdOffset - 2;
+    }
+
+    int payloadLength() {
+        return length - payloadOffset();
+    }
+
+    private void checkService(int index) {
+        if (index < 0 || index >= serviceCount) {
+            throw new IndexOutOfBoundsException("service index " + index + ", count " + serviceCount);
+        }
+    }
+
+    private int privilegeOffset(int index, int privilege) {
+        int count = getPrivilegeCount(index);
+        if (privilege < 0 || privilege >= count) {
+            throw new IndexOutOfBoundsException("privilege index " + privilege + ", count " + count);
+        }
+        return serviceOffsets[index] + 4 + privilege * 6;
+    }
+
+    private boolean stringEquals(int offset, int len, String value) {
+        if (value == null) {
+            return false;
+        }
+        if (value.length() == len) {
+            boolean ascii = true;
+            for (int i = 0; i < len; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+                if (data[offset + i] != (byte) c) {
+                    return false;
+                }
+            }
+            if (ascii) {
+                return true;
+            }
+        }
+        return Arrays.equals(Arrays.copyOfRange(data, offset, offset + len), value.getBytes());
+    }
+
+    private String readString(int offset) {
+        return new String(data, offset + 2, readUint16(offset));
+    }
+
+    private int skipString(int offset) {
+        int end = offset + 2 + readUint16(offset);
+        if (end > length) {
+            throw new IndexOutOfBoundsException("string at " + offset + " overruns " + length);
+        }
+        return end;
+    }
+
+    private short readShort(int offset) {
+        return (short) readUint16(offset);
+    }
+
+    private int readUint16(int offset) {
+        if (offset + 2 > length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length);
+        }
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    private int readInt(int offset) {
+        if (offset + 4 > length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length);
+        }
+        return (data[offset] & 0xFF)
+                | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16
+                | (data[offset + 3] & 0xFF) << 24;
+    }
+}
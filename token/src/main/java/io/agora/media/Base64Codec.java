@@ -0,0 +1,14 @@
+package io.agora.media;
+
+/**
+ * Base64 implementation used by {@link Utils#base64Encode(byte[])} and {@link Utils#base64Decode(String)}.
+ * Standard alphabet, padded, no line breaks. Install a platform codec with {@link Utils#setBase64Codec(Base64Codec)}.
+ */
+public interface Base64Codec {
+    String encode(byte[] data);
+
+    /**
+     * @throws IllegalArgumentException if {@code data} is not valid base64.
+     */
+    byte[] decode(String data);
+}
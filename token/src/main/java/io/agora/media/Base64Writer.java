@@ -0,0 +1,89 @@
+package io.agora.media;
+
+import java.io.IOException;
+
+/**
+ * Incremental base64 encoder (standard alphabet, padded, no line breaks) writing into a
+ * {@link TokenSink}. Produces the same text as {@link Utils#base64Encode(byte[])} for the same
+ * input, however that input is split across {@link #write} calls.
+ */
+final class Base64Writer {
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+
+    private final TokenSink sink;
+    private final byte[] out;
+    private int outLength;
+    // Up to two input bytes waiting for a full 3-byte group
+    private int carry;
+    private int carryLength;
+
+    Base64Writer(TokenSink sink) {
+        this.sink = sink;
+        this.out = CryptoContext.get().encodeScratch;
+    }
+
+    void write(byte[] data, int offset, int length) throws IOException {
+        int i = offset;
+        int end = offset + length;
+
+        while (carryLength > 0 && carryLength < 3 && i < end) {
+            carry = carry << 8 | (data[i++] & 0xFF);
+            carryLength++;
+        }
+        if (carryLength == 3) {
+            emit(carry);
+            carry = 0;
+            carryLength = 0;
+        }
+        if (carryLength > 0) {
+            return;
+        }
+
+        for (; i + 3 <= end; i += 3) {
+            emit((data[i] & 0xFF) << 16 | (data[i + 1] & 0xFF) << 8 | (data[i + 2] & 0xFF));
+        }
+        for (; i < end; i++) {
+            carry = carry << 8 | (data[i] & 0xFF);
+            carryLength++;
+        }
+    }
+
+    // Encode the remaining bytes with padding and flush everything to the sink
+    void finish() throws IOException {
+        if (outLength + 4 > out.length) {
+            flush();
+        }
+        if (carryLength == 1) {
+            out[outLength++] = ALPHABET[(carry >>> 2) & 0x3F];
+            out[outLength++] = ALPHABET[(carry << 4) & 0x3F];
+            out[outLength++] = '=';
+            out[outLength++] = '=';
+        } else if (carryLength == 2) {
+            out[outLength++] = ALPHABET[(carry >>> 10) & 0x3F];
+            out[outLength++] = ALPHABET[(carry >>> 4) & 0x3F];
+            out[outLength++] = ALPHABET[(carry << 2) & 0x3F];
+            out[outLength++] = '=';
+        }
+        carry = 0;
+        carryLength = 0;
+        flush();
+    }
+
+    private void emit(int group) throws IOException {
+        if (outLength + 4 > out.length) {
+            flush();
+        }
+        out[outLength++] = ALPHABET[(group >>> 18) & 0x3F];
+        out[outLength++] = ALPHABET[(group >>> 12) & 0x3F];
+        out[outLength++] = ALPHABET[(group >>> 6) & 0x3F];
+        out[outLength++] = ALPHABET[group & 0x3F];
+    }
+
+    private void flush() throws IOException {
+        if (outLength > 0) {
+            sink.write(out, 0, outLength);
+            outLength = 0;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package io.agora.media;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Created by Li on 10/1/2016.
+ */
+public class ByteBuf {
+    private static final int INITIAL_CAPACITY = 1024;
+    // Buffers that grew past this are not kept in the per-thread pool
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 4;
+
+    private static final ThreadLocal<ArrayDeque<ByteBuf>> POOL = new ThreadLocal<ArrayDeque<ByteBuf>>() {
+        @Override
+        protected ArrayDeque<ByteBuf> initialValue() {
+            return new ArrayDeque<>(MAX_POOLED_BUFFERS);
+        }
+    };
+
+    ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+
+    public ByteBuf() {
+    }
+
+    public ByteBuf(byte[] bytes) {
+        this.buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Take an empty buffer from the calling thread's pool. Hand it back with
+     * {@link #release()} once the bytes have been consumed.
+     */
+    public static ByteBuf acquire() {
+        ByteBuf buf = POOL.get().pollFirst();
+        return buf != null ? buf : new ByteBuf();
+    }
+
+    /**
+     * Return this buffer to the calling thread's pool. The buffer must not be used afterwards.
+     */
+    public void release() {
+        if (buffer.capacity() > MAX_POOLED_CAPACITY || !buffer.hasArray()) {
+            return;
+        }
+        ArrayDeque<ByteBuf> pool = POOL.get();
+        if (pool.size() < MAX_POOLED_BUFFERS) {
+            reset();
+            pool.addFirst(this);
+        }
+    }
+
+    // Forget the calling thread's pooled buffers, see Utils.releaseThreadResources()
+    static void releasePool() {
+        POOL.remove();
+    }
+
+    public ByteBuf reset() {
+        buffer.clear();
+        return this;
+    }
+
+    // Number of bytes written so far
+    public int length() {
+        return buffer.position();
+    }
+
+    // Backing array, valid in [0, length())
+    public byte[] array() {
+        return buffer.array();
+    }
+
+    public byte[] asBytes() {
+        byte[] out = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), buffer.arrayOffset(), out, 0, out.length);
+        return out;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (buffer.remaining() >= extra) {
+            return;
+        }
+        int required = buffer.position() + extra;
+        int capacity = Math.max(buffer.capacity() * 2, required);
+        ByteBuffer grown = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+    // packUint16
+    public ByteBuf put(short v) {
+        ensureCapacity(2);
+        buffer.putShort(v);
+        return this;
+    }
+
+    public ByteBuf put(byte[] v) {
+        put((short)v.length);
+        return putRaw(v, 0, v.length);
+    }
+
+    // Append bytes without the uint16 length prefix
+    public ByteBuf putRaw(byte[] v, int offset, int length) {
+        ensureCapacity(length);
+        buffer.put(v, offset, length);
+        return this;
+    }
+
+    // packUint32
+    public ByteBuf put(int v) {
+        ensureCapacity(4);
+        buffer.putInt(v);
+        return this;
+    }
+
+    public ByteBuf put(long v) {
+        ensureCapacity(8);
+        buffer.putLong(v);
+        return this;
+    }
+
+    public ByteBuf put(String v) {
+        int length = v.length();
+        for (int i = 0; i < length; i++) {
+            if (v.charAt(i) >= 0x80) {
+                return put(v.getBytes());
+            }
+        }
+
+        // ASCII only: same bytes as getBytes(), written without the temporary array
+        ensureCapacity(2 + length);
+        buffer.putShort((short) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) v.charAt(i));
+        }
+        return this;
+    }
+
+    public ByteBuf put(TreeMap<Short, String> extra) {
+        put((short)extra.size());
+
+        for (Map.Entry<Short, String> pair : extra.entrySet()) {
+            put(pair.getKey());
+            put(pair.getValue());
+        }
+
+        return this;
+    }
+
+    public ByteBuf putIntMap(TreeMap<Short, Integer> extra) {
+        put((short)extra.size());
+
+        for (Map.Entry<Short, Integer> pair : extra.entrySet()) {
+            put(pair.getKey());
+            put(pair.getValue());
+        }
+
+        return this;
+    }
+
+    public short readShort() {
+        return buffer.getShort();
+    }
+
+
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    public byte[] readBytes() {
+        short length = readShort();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public String readString() {
+        byte[] bytes = readBytes();
+        return new String(bytes);
+    }
+
+    public TreeMap readMap() {
+        TreeMap<Short, String> map = new TreeMap<>();
+
+        short length = readShort();
+
+        for (short i = 0; i < length; ++i) {
+            short k = readShort();
+            String v = readString();
+            map.put(k, v);
+        }
+
+        return map;
+    }
+
+    public TreeMap<Short, Integer> readIntMap() {
+        TreeMap<Short, Integer> map = new TreeMap<>();
+
+        short length = readShort();
+
+        for (short i = 0; i < length; ++i) {
+            short k = readShort();
+            Integer v = readInt();
+            map.put(k, v);
+        }
+
+        return map;
+    }
+}
@@ -0,0 +1,80 @@
+package io.agora.media;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Per-thread crypto and zlib state reused by {@link Utils} and the token classes, so the hot
+ * paths skip the JCA provider lookup and the native Deflater/Inflater setup on every call.
+ * <p>
+ * Everything here belongs to the calling thread; callers must finish with one primitive before
+ * handing the thread to code that may use the same primitive again.
+ * <p>
+ * A context lives as long as its thread, so the reuse only pays off on long-lived threads such as a
+ * fixed request pool or ForkJoinPool workers. A thread that exits should call {@link #release()}
+ * (publicly {@link Utils#releaseThreadResources()}) on the way out; otherwise the native zlib memory
+ * of its Deflater and Inflater is held until the collector cleans them up.
+ */
+final class CryptoContext {
+    private static final int SCRATCH_SIZE = 8192;
+    private static final int ENCODE_SCRATCH_SIZE = 1024;
+
+    // No initialValue: release() must be able to look without creating a context
+    private static final ThreadLocal<CryptoContext> LOCAL = new ThreadLocal<>();
+
+    final Mac hmacSha256;
+    final MessageDigest md5;
+    final Deflater deflater = new Deflater();
+    final Inflater inflater = new Inflater();
+    final byte[] scratch = new byte[SCRATCH_SIZE];
+    // Output chunk of Base64Writer / TokenSink, separate from the zlib scratch buffer
+    final byte[] encodeScratch = new byte[ENCODE_SCRATCH_SIZE];
+
+    private CryptoContext() {
+        try {
+            hmacSha256 = Mac.getInstance("HmacSHA256");
+            md5 = MessageDigest.getInstance("md5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static CryptoContext get() {
+        CryptoContext context = LOCAL.get();
+        if (context == null) {
+            context = new CryptoContext();
+            LOCAL.set(context);
+        }
+        return context;
+    }
+
+    /**
+     * Drop the calling thread's context, if it has one, and free its native zlib memory now.
+     * The next {@link #get()} on this thread builds a fresh context.
+     */
+    static void release() {
+        CryptoContext context = LOCAL.get();
+        if (context != null) {
+            LOCAL.remove();
+            context.close();
+        }
+    }
+
+    // The instance must not be used afterwards
+    void close() {
+        deflater.end();
+        inflater.end();
+    }
+
+    // The thread's HmacSHA256 instance, initialized with the given key
+    Mac hmac(byte[] key) throws InvalidKeyException {
+        hmacSha256.init(new SecretKeySpec(key, "HmacSHA256"));
+        return hmacSha256;
+    }
+}
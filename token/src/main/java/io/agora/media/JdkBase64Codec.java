@@ -0,0 +1,18 @@
+package io.agora.media;
+
+import java.util.Base64;
+
+/**
+ * Default codec backed by java.util.Base64 (JVM, and Android from API 26).
+ */
+final class JdkBase64Codec implements Base64Codec {
+    @Override
+    public String encode(byte[] data) {
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+    @Override
+    public byte[] decode(String data) {
+        return Base64.getDecoder().decode(data);
+    }
+}
@@ -1,6 +1,14 @@
 package io.agora.media;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
 public class RtcTokenBuilder2 {
+    // Below this many tokens a batch is not worth splitting across threads
+    private static final int PARALLEL_THRESHOLD = 64;
+
     public enum Role {
         /**
          * RECOMMENDED. Use this role for a voice/video call or a live broadcast, if
@@ -69,24 +77,139 @@ public class RtcTokenBuilder2 {
     public String buildTokenWithUserAccount(String appId, String appCertificate, String channelName, String account, Role role, int tokenExpire,
             int privilegeExpire) {
         AccessToken2 accessToken = new AccessToken2(appId, appCertificate, tokenExpire);
-        AccessToken2.Service serviceRtc = new AccessToken2.ServiceRtc(channelName, account);
+        accessToken.addService(newServiceRtc(channelName, account, role, privilegeExpire));
 
-        serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_JOIN_CHANNEL, privilegeExpire);
-        if (role == Role.ROLE_PUBLISHER) {
-            serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_PUBLISH_AUDIO_STREAM, privilegeExpire);
-            serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_PUBLISH_VIDEO_STREAM, privilegeExpire);
-            serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_PUBLISH_DATA_STREAM, privilegeExpire);
+        try {
+            return accessToken.build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    /**
+     * Build RTC tokens for many uids of the same channel in one call.
+     * <p>
+     * All tokens share issueTs; validation and signing key derivation are done once for the batch
+     * (see {@link AccessToken2Batch}) and serialization reuses per-thread buffers. Use
+     * {@link #buildTokensWithUid(String, String, String, int[], Role[], int[], int[], ForkJoinPool)}
+     * to give each uid its own role and expiries.
+     *
+     * @param uids:             User IDs, see {@link #buildTokenWithUid(String, String, String, int, Role, int, int)}.
+     * @param role:             Role applied to every uid.
+     * @return The RTC tokens, in the same order as uids.
+     */
+    public String[] buildTokensWithUid(String appId, String appCertificate, String channelName, int[] uids, Role role, int tokenExpire,
+            int privilegeExpire) {
+        Role[] roles = new Role[uids.length];
+        Arrays.fill(roles, role);
+        return buildTokensWithUid(appId, appCertificate, channelName, uids, roles, tokenExpire, privilegeExpire, null);
+    }
+
+    /**
+     * Build RTC tokens for many uids of the same channel in one call, optionally in parallel.
+     *
+     * @param uids:             User IDs, see {@link #buildTokenWithUid(String, String, String, int, Role, int, int)}.
+     * @param roles:            Role of each uid, same length as uids.
+     * @param pool:             Pool to fan the batch out on, or null to build on the calling thread.
+     *                          Small batches are always built on the calling thread. Worker threads keep
+     *                          per-thread crypto and zlib state, so pass a long-lived pool; if its workers
+     *                          retire, have them call {@link Utils#releaseThreadResources()} on termination.
+     * @return The RTC tokens, in the same order as uids.
+     */
+    public String[] buildTokensWithUid(String appId, String appCertificate, String channelName, int[] uids, Role[] roles, int tokenExpire,
+            int privilegeExpire, ForkJoinPool pool) {
+        return buildTokensWithUid(appId, appCertificate, channelName, uids, roles, filled(uids.length, tokenExpire),
+                filled(uids.length, privilegeExpire), pool);
+    }
+
+    /**
+     * Build RTC tokens for many uids of the same channel in one call, each with its own role and expiries.
+     * All tokens still share issueTs, so the expiries count from the same instant.
+     *
+     * @param uids:             User IDs, see {@link #buildTokenWithUid(String, String, String, int, Role, int, int)}.
+     * @param roles:            Role of each uid, same length as uids.
+     * @param tokenExpires:     Token expire of each uid in seconds, same length as uids.
+     * @param privilegeExpires: Privilege expire of each uid in seconds, same length as uids.
+     * @param pool:             See {@link #buildTokensWithUid(String, String, String, int[], Role[], int, int, ForkJoinPool)}.
+     * @return The RTC tokens, in the same order as uids.
+     */
+    public String[] buildTokensWithUid(String appId, String appCertificate, String channelName, int[] uids, Role[] roles,
+            int[] tokenExpires, int[] privilegeExpires, ForkJoinPool pool) {
+        if (roles.length != uids.length || tokenExpires.length != uids.length || privilegeExpires.length != uids.length) {
+            throw new IllegalArgumentException("uids, roles and expires must have the same length");
+        }
+        String[] accounts = new String[uids.length];
+        for (int i = 0; i < uids.length; i++) {
+            accounts[i] = AccessToken2.getUidStr(uids[i]);
+        }
+        return buildTokens(appId, appCertificate, channelName, accounts, roles, tokenExpires, privilegeExpires, pool);
+    }
+
+    /**
+     * Build RTC tokens for many accounts of the same channel in one call.
+     *
+     * @param accounts:         The users' accounts, max length is 255 Bytes each.
+     * @param role:             Role applied to every account.
+     * @return The RTC tokens, in the same order as accounts.
+     */
+    public List<String> buildTokensWithUserAccount(String appId, String appCertificate, String channelName, List<String> accounts, Role role,
+            int tokenExpire, int privilegeExpire) {
+        Role[] roles = new Role[accounts.size()];
+        Arrays.fill(roles, role);
+        return Arrays.asList(buildTokens(appId, appCertificate, channelName, accounts.toArray(new String[0]), roles,
+                filled(roles.length, tokenExpire), filled(roles.length, privilegeExpire), null));
+    }
+
+    private static int[] filled(int length, int value) {
+        int[] values = new int[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    private String[] buildTokens(String appId, String appCertificate, String channelName, String[] accounts, Role[] roles, int[] tokenExpires,
+            int[] privilegeExpires, ForkJoinPool pool) {
+        String[] tokens = new String[accounts.length];
+        // The batch expire is only a default; every token gets its own below
+        AccessToken2Batch batch = new AccessToken2Batch(appId, appCertificate, 0);
+
+        if (pool == null || accounts.length < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < accounts.length; i++) {
+                tokens[i] = buildBatchToken(batch, channelName, accounts[i], roles[i], tokenExpires[i], privilegeExpires[i]);
+            }
+            return tokens;
         }
-        accessToken.addService(serviceRtc);
 
+        pool.submit(() -> IntStream.range(0, accounts.length).parallel()
+                .forEach(i -> tokens[i] = buildBatchToken(batch, channelName, accounts[i], roles[i], tokenExpires[i], privilegeExpires[i])))
+                .join();
+        return tokens;
+    }
+
+    private static String buildBatchToken(AccessToken2Batch batch, String channelName, String account, Role role, int tokenExpire,
+            int privilegeExpire) {
         try {
-            return accessToken.build();
+            AccessToken2 accessToken = batch.newToken(tokenExpire);
+            accessToken.addService(newServiceRtc(channelName, account, role, privilegeExpire));
+            return batch.build(accessToken);
         } catch (Exception e) {
             e.printStackTrace();
             return "";
         }
     }
 
+    private static AccessToken2.Service newServiceRtc(String channelName, String account, Role role, int privilegeExpire) {
+        AccessToken2.Service serviceRtc = new AccessToken2.ServiceRtc(channelName, account);
+
+        serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_JOIN_CHANNEL, privilegeExpire);
+        if (role == Role.ROLE_PUBLISHER) {
+            serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_PUBLISH_AUDIO_STREAM, privilegeExpire);
+            serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_PUBLISH_VIDEO_STREAM, privilegeExpire);
+            serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_PUBLISH_DATA_STREAM, privilegeExpire);
+        }
+        return serviceRtc;
+    }
+
     /**
      * Generates an RTC token with the specified privilege.
      * <p>
@@ -0,0 +1,328 @@
+package io.agora.media;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Keeps minted tokens until they get close to expiry so repeated joins, renewals and requests for
+ * the same identity do not redo the signing work.
+ * <p>
+ * The expiry of a cached token is read from the token itself, the earliest of the token expire and
+ * its privilege expires (see {@link #getExpireTs(String)}). A token is served while more than
+ * {@code minRemainingSeconds} of that lifetime is left. Once a hit finds less than
+ * {@code refreshAheadSeconds} left, a replacement is minted on the refresh executor and the cached
+ * token keeps being served meanwhile. Entries are evicted least recently used beyond
+ * {@code maxEntries} and dropped once they pass the serving threshold.
+ * <p>
+ * Minters follow the builders' convention of returning "" on failure; such results are passed
+ * through but never cached, and neither are tokens that never expire. Instances are thread-safe; minting happens outside the lock.
+ */
+public class TokenCache {
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    public static final int DEFAULT_MIN_REMAINING_SECONDS = 300;
+    public static final int DEFAULT_REFRESH_AHEAD_SECONDS = 1800;
+
+    /**
+     * Identity and lifetime a token is minted for. Two requests with equal keys may be served the same
+     * token, so requests for different lifetimes never share one.
+     */
+    public static final class Key {
+        private final String appId;
+        private final String channelName;
+        private final String account;
+        private final int role;
+        private final int expire;
+        private final short[] serviceTypes;
+        private final int hash;
+
+        /**
+         * @param account      uid as formatted by {@link AccessToken2#getUidStr(int)}, or the user account.
+         * @param role         builder role value, e.g. {@link RtcTokenBuilder2.Role#initValue}.
+         * @param expire       lifetime in seconds the minter is asked for.
+         * @param serviceTypes {@link AccessToken2} SERVICE_TYPE_* values the token carries, in any order.
+         */
+        public Key(String appId, String channelName, String account, int role, int expire, short... serviceTypes) {
+            this.appId = appId;
+            this.channelName = channelName;
+            this.account = account;
+            this.role = role;
+            this.expire = expire;
+            this.serviceTypes = serviceTypes.clone();
+            Arrays.sort(this.serviceTypes);
+
+            int h = appId.hashCode();
+            h = 31 * h + (channelName == null ? 0 : channelName.hashCode());
+            h = 31 * h + (account == null ? 0 : account.hashCode());
+            h = 31 * h + role;
+            h = 31 * h + expire;
+            this.hash = 31 * h + Arrays.hashCode(this.serviceTypes);
+        }
+
+        public static Key rtc(String appId, String channelName, int uid, RtcTokenBuilder2.Role role, int expire) {
+            return new Key(appId, channelName, AccessToken2.getUidStr(uid), role.initValue, expire,
+                    AccessToken2.SERVICE_TYPE_RTC);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && role == other.role && expire == other.expire && appId.equals(other.appId)
+                    && Objects.equals(channelName, other.channelName) && Objects.equals(account, other.account)
+                    && Arrays.equals(serviceTypes, other.serviceTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class CachedToken {
+        final String token;
+        final long expireTs;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        CachedToken(String token, long expireTs) {
+            this.token = token;
+            this.expireTs = expireTs;
+        }
+    }
+
+    private static final ThreadLocal<AccessToken2Reader> READERS = new ThreadLocal<AccessToken2Reader>() {
+        @Override
+        protected AccessToken2Reader initialValue() {
+            return new AccessToken2Reader();
+        }
+    };
+
+    private final int maxEntries;
+    private final int minRemainingSeconds;
+    private final int refreshAheadSeconds;
+    private final Executor refreshExecutor;
+    private final LinkedHashMap<Key, CachedToken> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Seconds since 1/1/1970, replaceable by tests
+    IntSupplier clock = Utils::getTimestamp;
+
+    public TokenCache(Executor refreshExecutor) {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MIN_REMAINING_SECONDS, DEFAULT_REFRESH_AHEAD_SECONDS, refreshExecutor);
+    }
+
+    /**
+     * @param minRemainingSeconds a token is only served while more lifetime than this is left.
+     * @param refreshAheadSeconds a hit with less lifetime than this left mints a replacement in the
+     *                            background. Must be larger than minRemainingSeconds to have an effect.
+     * @param refreshExecutor     runs background refreshes; null disables refresh-ahead.
+     */
+    public TokenCache(int maxEntries, int minRemainingSeconds, int refreshAheadSeconds, Executor refreshExecutor) {
+        if (maxEntries <= 0 || minRemainingSeconds < 0) {
+            throw new IllegalArgumentException("maxEntries must be positive and minRemainingSeconds non-negative");
+        }
+        this.maxEntries = maxEntries;
+        this.minRemainingSeconds = minRemainingSeconds;
+        this.refreshAheadSeconds = refreshAheadSeconds;
+        this.refreshExecutor = refreshExecutor;
+        this.entries = new LinkedHashMap<Key, CachedToken>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedToken> eldest) {
+                if (size() > TokenCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cached token for the key, minting and caching one with {@code minter} on a miss.
+     *
+     * @return the token, or "" if minting failed.
+     */
+    public String get(Key key, Supplier<String> minter) {
+        CachedToken entry = lookup(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            if (refreshExecutor != null && entry.expireTs - clock.getAsInt() <= refreshAheadSeconds
+                    && entry.refreshing.compareAndSet(false, true)) {
+                refreshAsync(key, entry, minter);
+            }
+            return entry.token;
+        }
+        misses.incrementAndGet();
+        String token = minter.get();
+        put(key, token);
+        return token == null ? "" : token;
+    }
+
+    /**
+     * Cached token for the key without minting, e.g. to collect the misses of a batch.
+     *
+     * @return the token, or null on a miss.
+     */
+    public String get(Key key) {
+        CachedToken entry = lookup(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.token;
+    }
+
+    /**
+     * Cache a token minted elsewhere. Empty tokens, tokens whose expiry cannot be read and tokens that
+     * never expire are ignored.
+     */
+    public void put(Key key, String token) {
+        if (token == null || token.isEmpty()) {
+            return;
+        }
+        long expireTs = getExpireTs(token);
+        // A token without expiry would be served forever, so it is handed out once and never cached
+        if (expireTs < 0 || expireTs == Long.MAX_VALUE || expireTs - clock.getAsInt() <= minRemainingSeconds) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new CachedToken(token, expireTs));
+        }
+    }
+
+    public void invalidate(Key key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Drop every entry that can no longer be served. Lookups already skip such entries, this only
+     * returns their memory early.
+     */
+    public void evictExpired() {
+        long limit = (long) clock.getAsInt() + minRemainingSeconds;
+        synchronized (entries) {
+            Iterator<CachedToken> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expireTs <= limit) {
+                    it.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    // Background refreshes started by hits close to expiry
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private CachedToken lookup(Key key) {
+        long limit = (long) clock.getAsInt() + minRemainingSeconds;
+        synchronized (entries) {
+            CachedToken entry = entries.get(key);
+            if (entry != null && entry.expireTs <= limit) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void refreshAsync(Key key, CachedToken stale, Supplier<String> minter) {
+        refreshes.incrementAndGet();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    String token = minter.get();
+                    if (token != null && !token.isEmpty()) {
+                        put(key, token);
+                    }
+                } finally {
+                    // Allow another attempt if the mint failed and the stale entry is still cached
+                    stale.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stale.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Time, in seconds since 1/1/1970, at which a 006 or 007 token or one of its privileges expires
+     * first.
+     *
+     * @return the expiry, {@link Long#MAX_VALUE} if nothing in the token expires, or -1 if the
+     * token cannot be parsed.
+     */
+    public static long getExpireTs(String token) {
+        if (token == null) {
+            return -1;
+        }
+        if (token.startsWith(AccessToken2.getVersion())) {
+            AccessToken2Reader reader = READERS.get();
+            if (!reader.wrap(token)) {
+                return -1;
+            }
+            int earliest = reader.getEarliestExpire();
+            return earliest == 0 ? Long.MAX_VALUE : (reader.getIssueTs() & 0xFFFFFFFFL) + (earliest & 0xFFFFFFFFL);
+        }
+        if (token.startsWith(AccessToken.getVersion())) {
+            AccessToken accessToken = AccessToken.parse(token);
+            if (accessToken == null) {
+                return -1;
+            }
+            long earliest = accessToken.message.ts & 0xFFFFFFFFL;
+            for (int privilegeTs : accessToken.message.messages.values()) {
+                if (privilegeTs != 0 && (privilegeTs & 0xFFFFFFFFL) < earliest) {
+                    earliest = privilegeTs & 0xFFFFFFFFL;
+                }
+            }
+            return earliest;
+        }
+        return -1;
+    }
+}
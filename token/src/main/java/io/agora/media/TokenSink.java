@@ -0,0 +1,58 @@
+package io.agora.media;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Destination for the ASCII characters of a token built with {@code buildTo}.
+ */
+abstract class TokenSink {
+    abstract void write(byte[] ascii, int offset, int length) throws IOException;
+
+    void write(String ascii) throws IOException {
+        int length = ascii.length();
+        byte[] chunk = CryptoContext.get().encodeScratch;
+        for (int start = 0; start < length; start += chunk.length) {
+            int end = Math.min(length, start + chunk.length);
+            for (int i = start; i < end; i++) {
+                chunk[i - start] = (byte) ascii.charAt(i);
+            }
+            write(chunk, 0, end - start);
+        }
+    }
+
+    static TokenSink of(final OutputStream out) {
+        return new TokenSink() {
+            @Override
+            void write(byte[] ascii, int offset, int length) throws IOException {
+                out.write(ascii, offset, length);
+            }
+        };
+    }
+
+    static TokenSink of(final ByteBuffer out) {
+        return new TokenSink() {
+            @Override
+            void write(byte[] ascii, int offset, int length) {
+                out.put(ascii, offset, length);
+            }
+        };
+    }
+
+    static TokenSink of(final Appendable out) {
+        return new TokenSink() {
+            @Override
+            void write(byte[] ascii, int offset, int length) throws IOException {
+                for (int i = offset; i < offset + length; i++) {
+                    out.append((char) ascii[i]);
+                }
+            }
+
+            @Override
+            void write(String ascii) throws IOException {
+                out.append(ascii);
+            }
+        };
+    }
+}
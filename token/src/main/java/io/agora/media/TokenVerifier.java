@@ -0,0 +1,207 @@
+package io.agora.media;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+
+/**
+ * Server-side verification of 006 ({@link AccessToken}) and 007 ({@link AccessToken2}) tokens
+ * issued for one App ID / App Certificate pair.
+ * <p>
+ * The signature is recomputed exactly as the builders do and compared in constant time, then the
+ * token expiry and every privilege expiry are checked. Both versions follow the builders' "valid until"
+ * semantics: a token is still valid at its expiry second and rejected after it. A privilege expire of 0
+ * means no limit, matching what {@link FpaTokenBuilder} issues.
+ * <p>
+ * The first step of the 007 signing key derivation, which depends only on the issue time, is cached
+ * per issueTs in a bounded LRU; the salt step is one HMAC per call since salts are random per token.
+ * HMAC instances are kept per thread, so an instance can be shared by all request threads.
+ */
+public class TokenVerifier {
+    public enum Result {
+        VALID,
+        MALFORMED,
+        APP_ID_MISMATCH,
+        SIGNATURE_MISMATCH,
+        // The token was issued for another channel or uid than the one presented
+        CHANNEL_MISMATCH,
+        EXPIRED,
+        PRIVILEGE_EXPIRED,
+    }
+
+    private static final int MAX_CACHED_ISSUE_KEYS = 4096;
+
+    private static final ThreadLocal<AccessToken2Reader> READERS = new ThreadLocal<AccessToken2Reader>() {
+        @Override
+        protected AccessToken2Reader initialValue() {
+            return new AccessToken2Reader();
+        }
+    };
+
+    private final String appId;
+    private final String appCertificate;
+    private final byte[] appCertificateBytes;
+    // issueTs -> first-step key, least recently used evicted first; the certificate is fixed per verifier
+    private final Map<Integer, byte[]> issueKeys = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+            return size() > MAX_CACHED_ISSUE_KEYS;
+        }
+    };
+
+    public TokenVerifier(String appId, String appCertificate) {
+        if (!Utils.isUUID(appId) || !Utils.isUUID(appCertificate)) {
+            throw new IllegalArgumentException("appId and appCertificate must be 32 hex characters");
+        }
+        this.appId = appId;
+        this.appCertificate = appCertificate;
+        this.appCertificateBytes = appCertificate.getBytes();
+    }
+
+    /**
+     * Verify a 007 token without binding it to a channel or uid.
+     * 006 tokens cannot be checked this way since their signature covers the channel and uid.
+     */
+    public Result verify(String token) {
+        return verify(token, null, null, Utils.getTimestamp());
+    }
+
+    public Result verify(String token, String channelName, String uid) {
+        return verify(token, channelName, uid, Utils.getTimestamp());
+    }
+
+    /**
+     * @param channelName channel the token must have been issued for; required for 006 tokens,
+     *                    optional (null skips the check) for 007 tokens.
+     * @param uid         uid or account string, see {@link AccessToken2#getUidStr(int)}; same rules
+     *                    as channelName.
+     * @param now         current time in seconds since 1/1/1970.
+     */
+    public Result verify(String token, String channelName, String uid, int now) {
+        if (token == null || token.length() < Utils.VERSION_LENGTH) {
+            return Result.MALFORMED;
+        }
+        if (token.startsWith(AccessToken2.getVersion())) {
+            return verify2(token, channelName, uid, now);
+        }
+        if (token.startsWith(AccessToken.getVersion())) {
+            return verify1(token, channelName, uid, now);
+        }
+        return Result.MALFORMED;
+    }
+
+    private Result verify2(String token, String channelName, String uid, int now) {
+        AccessToken2Reader reader = READERS.get();
+        if (!reader.wrap(token)) {
+            return Result.MALFORMED;
+        }
+        if (!reader.appIdEquals(appId)) {
+            return Result.APP_ID_MISMATCH;
+        }
+
+        CryptoContext context = CryptoContext.get();
+        Mac mac;
+        try {
+            mac = context.hmac(signingKey(context, reader.getIssueTs(), reader.getSalt()));
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+        mac.update(reader.data(), reader.payloadOffset(), reader.payloadLength());
+        byte[] expected = mac.doFinal();
+        if (!constantTimeEquals(expected, reader.data(), reader.signatureOffset(), reader.signatureLength())) {
+            return Result.SIGNATURE_MISMATCH;
+        }
+
+        if (channelName != null && !reader.channelNameEquals(channelName)) {
+            return Result.CHANNEL_MISMATCH;
+        }
+        if (uid != null && !reader.uidEquals(uid)) {
+            return Result.CHANNEL_MISMATCH;
+        }
+
+        long issueTs = reader.getIssueTs() & 0xFFFFFFFFL;
+        if (reader.getExpire() != 0 && now > issueTs + reader.getExpire()) {
+            return Result.EXPIRED;
+        }
+        for (int i = 0; i < reader.getServiceCount(); i++) {
+            for (int j = 0; j < reader.getPrivilegeCount(i); j++) {
+                int privilegeExpire = reader.getPrivilegeExpire(i, j);
+                if (privilegeExpire != 0 && now > issueTs + privilegeExpire) {
+                    return Result.PRIVILEGE_EXPIRED;
+                }
+            }
+        }
+        return Result.VALID;
+    }
+
+    private Result verify1(String token, String channelName, String uid, int now) {
+        if (channelName == null || uid == null) {
+            return Result.CHANNEL_MISMATCH;
+        }
+
+        AccessToken accessToken = AccessToken.parse(token);
+        if (accessToken == null) {
+            return Result.MALFORMED;
+        }
+        if (!appId.equals(accessToken.appId)) {
+            return Result.APP_ID_MISMATCH;
+        }
+
+        byte[] expected;
+        try {
+            expected = AccessToken.generateSignature(appCertificate, appId, channelName, uid, accessToken.messageRawContent);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        if (!MessageDigest.isEqual(expected, accessToken.signature)) {
+            return Result.SIGNATURE_MISMATCH;
+        }
+        if (accessToken.crcChannelName != Utils.crc32(channelName) || accessToken.crcUid != Utils.crc32(uid)) {
+            return Result.CHANNEL_MISMATCH;
+        }
+
+        long nowTs = now & 0xFFFFFFFFL;
+        if (nowTs > (accessToken.message.ts & 0xFFFFFFFFL)) {
+            return Result.EXPIRED;
+        }
+        for (int privilegeTs : accessToken.message.messages.values()) {
+            if (privilegeTs != 0 && nowTs > (privilegeTs & 0xFFFFFFFFL)) {
+                return Result.PRIVILEGE_EXPIRED;
+            }
+        }
+        return Result.VALID;
+    }
+
+    // Same derivation as AccessToken2.getSign(): the issueTs step is memoized, the salt step runs per call
+    private byte[] signingKey(CryptoContext context, int issueTs, int salt) throws InvalidKeyException {
+        byte[] issueKey;
+        synchronized (issueKeys) {
+            issueKey = issueKeys.get(issueTs);
+        }
+        if (issueKey == null) {
+            issueKey = context.hmac(uint32(issueTs)).doFinal(appCertificateBytes);
+            synchronized (issueKeys) {
+                issueKeys.put(issueTs, issueKey);
+            }
+        }
+        return context.hmac(uint32(salt)).doFinal(issueKey);
+    }
+
+    private static byte[] uint32(int v) {
+        return new byte[] {(byte) v, (byte) (v >>> 8), (byte) (v >>> 16), (byte) (v >>> 24)};
+    }
+
+    private static boolean constantTimeEquals(byte[] expected, byte[] data, int offset, int length) {
+        if (expected.length != length) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < length; i++) {
+            diff |= expected[i] ^ data[offset + i];
+        }
+        return diff == 0;
+    }
+}
@@ -0,0 +1,195 @@
+package io.agora.media;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class Utils {
+    public static final long HMAC_SHA256_LENGTH = 32;
+    public static final int VERSION_LENGTH = 3;
+    public static final int APP_ID_LENGTH = 32;
+
+    private static volatile Base64Codec base64Codec = defaultBase64Codec();
+
+    public static byte[] hmacSign(String keyString, byte[] msg) throws InvalidKeyException, NoSuchAlgorithmException {
+        return CryptoContext.get().hmac(keyString.getBytes()).doFinal(msg);
+    }
+
+    public static byte[] pack(PackableEx packableEx) {
+        ByteBuf buffer = ByteBuf.acquire();
+        try {
+            packableEx.marshal(buffer);
+            return buffer.asBytes();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    public static void unpack(byte[] data, PackableEx packableEx) {
+        ByteBuf buffer = new ByteBuf(data);
+        packableEx.unmarshal(buffer);
+    }
+
+    public static String base64Encode(byte[] data) {
+        return base64Codec().encode(data);
+    }
+
+    public static byte[] base64Decode(String data) {
+        return base64Codec().decode(data);
+    }
+
+    /**
+     * Replace the Base64 implementation, e.g. with android.util.Base64 on devices older than API 26
+     * where java.util.Base64 is missing. Call once at startup, before any token is built or parsed.
+     */
+    public static void setBase64Codec(Base64Codec codec) {
+        if (codec == null) {
+            throw new IllegalArgumentException("codec must not be null");
+        }
+        base64Codec = codec;
+    }
+
+    private static Base64Codec base64Codec() {
+        Base64Codec codec = base64Codec;
+        if (codec == null) {
+            throw new IllegalStateException("java.util.Base64 is unavailable, install a codec with Utils.setBase64Codec()");
+        }
+        return codec;
+    }
+
+    private static Base64Codec defaultBase64Codec() {
+        try {
+            Class.forName("java.util.Base64");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        return new JdkBase64Codec();
+    }
+
+    public static int crc32(String data) {
+        // get bytes from string
+        byte[] bytes = data.getBytes();
+        return crc32(bytes);
+    }
+
+    public static int crc32(byte[] bytes) {
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes);
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Free the calling thread's pooled crypto, zlib and buffer state, which is otherwise kept for the
+     * life of the thread. Call it before a worker thread exits, e.g. from a pool's thread factory or
+     * ForkJoinWorkerThread.onTermination(); the state is rebuilt if the thread mints again.
+     */
+    public static void releaseThreadResources() {
+        CryptoContext.release();
+        ByteBuf.releasePool();
+    }
+
+    public static int getTimestamp() {
+        return (int) ((new Date().getTime()) / 1000);
+    }
+
+    public static int randomInt() {
+        return new SecureRandom().nextInt();
+    }
+
+    public static boolean isUUID(String uuid) {
+        if (uuid.length() != 32) {
+            return false;
+        }
+
+        return uuid.matches("\\p{XDigit}+");
+    }
+
+    public static byte[] compress(byte[] data) {
+        byte[] output;
+        CryptoContext context = CryptoContext.get();
+        Deflater deflater = context.deflater;
+        byte[] buf = context.scratch;
+        ByteBuf out = ByteBuf.acquire();
+
+        try {
+            deflater.reset();
+            deflater.setInput(data);
+            deflater.finish();
+
+            while (!deflater.finished()) {
+                int i = deflater.deflate(buf);
+                out.putRaw(buf, 0, i);
+            }
+            output = out.asBytes();
+        } catch (Exception e) {
+            output = data;
+            e.printStackTrace();
+        } finally {
+            out.release();
+        }
+
+        return output;
+    }
+
+    // Deflate data[offset, offset + length) chunk by chunk straight into a base64 writer
+    static void compressTo(byte[] data, int offset, int length, Base64Writer out) throws IOException {
+        CryptoContext context = CryptoContext.get();
+        Deflater deflater = context.deflater;
+        byte[] buf = context.scratch;
+
+        deflater.reset();
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+
+        while (!deflater.finished()) {
+            int i = deflater.deflate(buf);
+            out.write(buf, 0, i);
+        }
+    }
+
+    public static byte[] decompress(byte[] data) {
+        CryptoContext context = CryptoContext.get();
+        Inflater inflater = context.inflater;
+        byte[] buf = context.scratch;
+        ByteBuf out = ByteBuf.acquire();
+
+        try {
+            inflater.reset();
+            inflater.setInput(data);
+            int len;
+
+            while ((len = inflater.inflate(buf)) > 0) {
+                out.putRaw(buf, 0, len);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        try {
+            return out.asBytes();
+        } finally {
+            out.release();
+        }
+    }
+
+    public static String md5(String plainText) {
+        byte[] secretBytes = null;
+        try {
+            secretBytes = CryptoContext.get().md5.digest(
+                    plainText.getBytes());
+        } catch (IllegalStateException e) {
+            throw new RuntimeException("No md5 digest！");
+        }
+        String md5code = new BigInteger(1, secretBytes).toString(16);
+        for (int i = 0; i < 32 - md5code.length(); i++) {
+            md5code = "0" + md5code;
+        }
+        return md5code;
+    }
+}
@@ -0,0 +1,141 @@
+package io.agora.media;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class AccessToken2Test {
+    static final String APP_ID = "970CA35de60c44645bbae8a215061b33";
+    static final String APP_CERTIFICATE = "5CFd2fd1755d40ecb72977518be15d3b";
+    static final String CHANNEL_NAME = "7d72365eb983485397e3e3f9d460bdda";
+    static final String UID = "2882341273";
+
+    private static AccessToken2 rtcToken(String channelName) {
+        AccessToken2 accessToken = new AccessToken2(APP_ID, APP_CERTIFICATE, 600);
+        accessToken.issueTs = 1700000000;
+        accessToken.salt = 1;
+        AccessToken2.Service serviceRtc = new AccessToken2.ServiceRtc(channelName, UID);
+        serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_JOIN_CHANNEL, 600);
+        accessToken.addService(serviceRtc);
+        return accessToken;
+    }
+
+    @Test
+    public void build_matchesReferenceToken() throws Exception {
+        assertEquals("007eJxTYKg1Z4iakb32mMuTqt+6v+9yzT8mVvjp+8euNHZ/eVuOx4sUGCzNDZwdjU1TUs0Mkk1MzExMk5ISUy0SjQxNDcwMk4yNGT4Gp0YwMTAwMoAwBIL4CgzmKeZGxmamqUmWFsYmFqbGluapxqnGaZYpJmYGSSkpiVwMRhYWRsYmhkbmxgAevyXi",
+                rtcToken(CHANNEL_NAME).build());
+    }
+
+    @Test
+    public void buildTo_matchesBuild() throws Exception {
+        AccessToken2 accessToken = rtcToken(CHANNEL_NAME);
+        String token = accessToken.build();
+
+        StringBuilder appendable = new StringBuilder();
+        accessToken.buildTo(appendable);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        accessToken.buildTo(stream);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        accessToken.buildTo(buffer);
+
+        assertEquals(token, appendable.toString());
+        assertEquals(token, stream.toString("US-ASCII"));
+        assertEquals(token, new String(buffer.array(), 0, buffer.position(), "US-ASCII"));
+    }
+
+    @Test
+    public void parse_roundTripsLongChannelName() throws Exception {
+        StringBuilder channelName = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            channelName.append('c');
+        }
+        String token = rtcToken(channelName.toString()).build();
+
+        AccessToken2 parsed = new AccessToken2();
+        assertTrue(parsed.parse(token));
+        assertEquals(APP_ID, parsed.appId);
+        assertEquals(1700000000, parsed.issueTs);
+        assertEquals(600, parsed.expire);
+        AccessToken2.ServiceRtc serviceRtc = (AccessToken2.ServiceRtc) parsed.services.get(AccessToken2.SERVICE_TYPE_RTC);
+        assertEquals(channelName.toString(), serviceRtc.getChannelName());
+        assertEquals(UID, serviceRtc.getUid());
+    }
+
+    @Test
+    public void reader_matchesParse() throws Exception {
+        String token = new RtcTokenBuilder2().buildTokenWithRtm2(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, UID,
+                RtcTokenBuilder2.Role.ROLE_PUBLISHER, 600, 500, 400, 300, 200, "rtm-user", 100);
+        AccessToken2 parsed = new AccessToken2();
+        assertTrue(parsed.parse(token));
+
+        AccessToken2Reader reader = new AccessToken2Reader();
+        assertTrue(reader.wrap(token));
+        assertEquals(parsed.appId, reader.getAppId());
+        assertEquals(parsed.issueTs, reader.getIssueTs());
+        assertEquals(parsed.expire, reader.getExpire());
+        assertEquals(parsed.salt, reader.getSalt());
+        assertEquals(parsed.services.size(), reader.getServiceCount());
+        assertEquals(CHANNEL_NAME, reader.getChannelName());
+        assertEquals(UID, reader.getUid());
+        assertTrue(reader.channelNameEquals(CHANNEL_NAME));
+        assertFalse(reader.uidEquals("1"));
+
+        int index = 0;
+        for (AccessToken2.Service service : parsed.services.values()) {
+            assertEquals(service.getServiceType(), reader.getServiceType(index));
+            assertEquals(service.getPrivileges().size(), reader.getPrivilegeCount(index));
+            for (int i = 0; i < reader.getPrivilegeCount(index); i++) {
+                Integer expire = service.getPrivileges().get(reader.getPrivilegeKey(index, i));
+                assertEquals(expire.intValue(), reader.getPrivilegeExpire(index, i));
+            }
+            index++;
+        }
+        assertFalse(reader.wrap("007not-a-token"));
+    }
+
+    @Test
+    public void batch_matchesSingleBuild() throws Exception {
+        AccessToken2Batch batch = new AccessToken2Batch(APP_ID, APP_CERTIFICATE, 600, true);
+        AccessToken2 accessToken = batch.newToken();
+        AccessToken2.Service serviceRtc = new AccessToken2.ServiceRtc(CHANNEL_NAME, UID);
+        serviceRtc.addPrivilegeRtc(AccessToken2.PrivilegeRtc.PRIVILEGE_JOIN_CHANNEL, 600);
+        accessToken.addService(serviceRtc);
+
+        assertEquals(accessToken.build(), batch.build(accessToken));
+    }
+
+    @Test
+    public void batch_perUidRolesAndExpiries() {
+        String[] tokens = new RtcTokenBuilder2().buildTokensWithUid(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, new int[] {1001, 1002},
+                new RtcTokenBuilder2.Role[] {RtcTokenBuilder2.Role.ROLE_PUBLISHER, RtcTokenBuilder2.Role.ROLE_SUBSCRIBER},
+                new int[] {600, 3600}, new int[] {300, 1800}, null);
+
+        AccessToken2Reader first = new AccessToken2Reader();
+        AccessToken2Reader second = new AccessToken2Reader();
+        assertTrue(first.wrap(tokens[0]));
+        assertTrue(second.wrap(tokens[1]));
+        assertEquals(first.getIssueTs(), second.getIssueTs());
+        assertEquals(600, first.getExpire());
+        assertEquals(3600, second.getExpire());
+        assertEquals(4, first.getPrivilegeCount(0));
+        assertEquals(1, second.getPrivilegeCount(0));
+        assertEquals(300, first.getPrivilegeExpire(0, 0));
+        assertEquals(1800, second.getPrivilegeExpire(0, 0));
+    }
+
+    @Test
+    public void releaseThreadResources_rebuildsContext() throws Exception {
+        String token = rtcToken(CHANNEL_NAME).build();
+        CryptoContext context = CryptoContext.get();
+
+        Utils.releaseThreadResources();
+        Utils.releaseThreadResources();
+
+        assertNotSame(context, CryptoContext.get());
+        assertEquals(token, rtcToken(CHANNEL_NAME).build());
+        assertTrue(new AccessToken2().parse(token));
+    }
+}
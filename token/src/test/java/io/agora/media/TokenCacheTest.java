@@ -0,0 +1,115 @@
+package io.agora.media;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static io.agora.media.AccessToken2Test.APP_CERTIFICATE;
+import static io.agora.media.AccessToken2Test.APP_ID;
+import static io.agora.media.AccessToken2Test.CHANNEL_NAME;
+import static org.junit.Assert.*;
+
+public class TokenCacheTest {
+    private final AtomicInteger minted = new AtomicInteger();
+
+    private Supplier<String> minter(int uid, int expire) {
+        return () -> {
+            minted.incrementAndGet();
+            return new RtcTokenBuilder2().buildTokenWithUid(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, uid,
+                    RtcTokenBuilder2.Role.ROLE_PUBLISHER, expire, expire);
+        };
+    }
+
+    @Test
+    public void get_servesUntilThresholdAndRefreshesAhead() {
+        List<Runnable> refreshQueue = new ArrayList<>();
+        TokenCache cache = new TokenCache(16, 100, 300, refreshQueue::add);
+        int now = Utils.getTimestamp();
+        int[] clock = {now};
+        cache.clock = () -> clock[0];
+        TokenCache.Key key = TokenCache.Key.rtc(APP_ID, CHANNEL_NAME, 1001, RtcTokenBuilder2.Role.ROLE_PUBLISHER, 600);
+
+        String first = cache.get(key, minter(1001, 600));
+        assertEquals(first, cache.get(key, minter(1001, 600)));
+        assertEquals(1, minted.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertTrue(refreshQueue.isEmpty());
+
+        // Inside the refresh window: still served, one background refresh queued
+        clock[0] = now + 400;
+        assertEquals(first, cache.get(key, minter(1001, 600)));
+        assertEquals(first, cache.get(key, minter(1001, 600)));
+        assertEquals(1, refreshQueue.size());
+        assertEquals(1, cache.getRefreshCount());
+        refreshQueue.get(0).run();
+        assertEquals(2, minted.get());
+
+        // The refreshed token replaced the cached one
+        assertNotEquals(first, cache.get(key, minter(1001, 600)));
+        assertEquals(2, minted.get());
+
+        clock[0] = now + 550;
+        cache.get(key, minter(1001, 600));
+        assertEquals(3, minted.get());
+        assertEquals(4, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedAndExpired() {
+        TokenCache cache = new TokenCache(2, 100, 0, null);
+        TokenCache.Key a = TokenCache.Key.rtc(APP_ID, CHANNEL_NAME, 1, RtcTokenBuilder2.Role.ROLE_PUBLISHER, 600);
+        TokenCache.Key b = TokenCache.Key.rtc(APP_ID, CHANNEL_NAME, 2, RtcTokenBuilder2.Role.ROLE_PUBLISHER, 600);
+        TokenCache.Key c = new TokenCache.Key(APP_ID, CHANNEL_NAME, "3", 1, 600, AccessToken2.SERVICE_TYPE_RTC);
+
+        cache.get(a, minter(1, 600));
+        cache.get(b, minter(2, 600));
+        assertNotNull(cache.get(a));
+        cache.get(c, minter(3, 600));
+        assertNull(cache.get(b));
+        assertEquals(1, cache.getEvictionCount());
+
+        // Too short-lived to ever be served
+        cache.get(b, minter(2, 50));
+        assertNull(cache.get(b));
+
+        cache.clock = () -> Utils.getTimestamp() + 550;
+        cache.evictExpired();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_keepsLifetimesApartAndSkipsTokensThatNeverExpire() {
+        TokenCache cache = new TokenCache(16, 100, 0, null);
+        TokenCache.Key forever = TokenCache.Key.rtc(APP_ID, CHANNEL_NAME, 1001, RtcTokenBuilder2.Role.ROLE_PUBLISHER, 0);
+        TokenCache.Key regular = TokenCache.Key.rtc(APP_ID, CHANNEL_NAME, 1001, RtcTokenBuilder2.Role.ROLE_PUBLISHER, 600);
+        assertNotEquals(forever, regular);
+
+        String unbounded = cache.get(forever, minter(1001, 0));
+        assertEquals(Long.MAX_VALUE, TokenCache.getExpireTs(unbounded));
+        assertNull(cache.get(forever));
+        assertEquals(0, cache.size());
+
+        String token = cache.get(regular, minter(1001, 600));
+        assertNotEquals(unbounded, token);
+        assertEquals(token, cache.get(regular));
+    }
+
+    @Test
+    public void getExpireTs_earliestPrivilege() {
+        String token = new RtcTokenBuilder2().buildTokenWithUid(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, 1001,
+                RtcTokenBuilder2.Role.ROLE_PUBLISHER, 600, 300);
+        long issueTs = Utils.getTimestamp();
+        assertTrue(Math.abs(TokenCache.getExpireTs(token) - (issueTs + 300)) <= 1);
+
+        int expireTs = Utils.getTimestamp() + 100;
+        String token006 = new RtcTokenBuilder().buildTokenWithUid(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, 1001,
+                RtcTokenBuilder.Role.Role_Publisher, expireTs);
+        assertEquals(expireTs, TokenCache.getExpireTs(token006));
+        assertEquals(-1, TokenCache.getExpireTs("abc"));
+    }
+}
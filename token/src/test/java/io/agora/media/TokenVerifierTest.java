@@ -0,0 +1,75 @@
+package io.agora.media;
+
+import org.junit.Test;
+
+import static io.agora.media.AccessToken2Test.APP_CERTIFICATE;
+import static io.agora.media.AccessToken2Test.APP_ID;
+import static io.agora.media.AccessToken2Test.CHANNEL_NAME;
+import static org.junit.Assert.*;
+
+public class TokenVerifierTest {
+    private final TokenVerifier verifier = new TokenVerifier(APP_ID, APP_CERTIFICATE);
+
+    @Test
+    public void verify_accessToken2() {
+        String token = new RtcTokenBuilder2().buildTokenWithUid(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, 1001,
+                RtcTokenBuilder2.Role.ROLE_PUBLISHER, 600, 300);
+        int now = Utils.getTimestamp();
+
+        assertEquals(TokenVerifier.Result.VALID, verifier.verify(token, CHANNEL_NAME, "1001", now));
+        assertEquals(TokenVerifier.Result.VALID, verifier.verify(token));
+        assertEquals(TokenVerifier.Result.CHANNEL_MISMATCH, verifier.verify(token, "other", "1001", now));
+        assertEquals(TokenVerifier.Result.CHANNEL_MISMATCH, verifier.verify(token, CHANNEL_NAME, "1002", now));
+        assertEquals(TokenVerifier.Result.PRIVILEGE_EXPIRED, verifier.verify(token, null, null, now + 400));
+        assertEquals(TokenVerifier.Result.EXPIRED, verifier.verify(token, null, null, now + 700));
+        assertEquals(TokenVerifier.Result.SIGNATURE_MISMATCH,
+                new TokenVerifier(APP_ID, "5CFd2fd1755d40ecb72977518be15d3c").verify(token));
+        assertEquals(TokenVerifier.Result.MALFORMED, verifier.verify("007abc"));
+    }
+
+    @Test
+    public void verify_accessToken() {
+        int now = Utils.getTimestamp();
+        String token = new RtcTokenBuilder().buildTokenWithUid(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, 1001,
+                RtcTokenBuilder.Role.Role_Publisher, now + 100);
+
+        assertEquals(TokenVerifier.Result.VALID, verifier.verify(token, CHANNEL_NAME, "1001", now));
+        assertEquals(TokenVerifier.Result.SIGNATURE_MISMATCH, verifier.verify(token, CHANNEL_NAME, "1002", now));
+        assertEquals(TokenVerifier.Result.CHANNEL_MISMATCH, verifier.verify(token));
+        assertEquals(TokenVerifier.Result.PRIVILEGE_EXPIRED, verifier.verify(token, CHANNEL_NAME, "1001", now + 200));
+    }
+
+    // Both versions are valid at their expiry second and rejected one second later
+    @Test
+    public void verify_expiryBoundary() throws Exception {
+        String token2 = new RtcTokenBuilder2().buildTokenWithUid(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, 1001,
+                RtcTokenBuilder2.Role.ROLE_PUBLISHER, 600, 300);
+        AccessToken2Reader reader = new AccessToken2Reader();
+        assertTrue(reader.wrap(token2));
+        int issueTs = reader.getIssueTs();
+        assertEquals(TokenVerifier.Result.VALID, verifier.verify(token2, null, null, issueTs + 300));
+        assertEquals(TokenVerifier.Result.PRIVILEGE_EXPIRED, verifier.verify(token2, null, null, issueTs + 301));
+
+        token2 = new RtcTokenBuilder2().buildTokenWithUid(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, 1001,
+                RtcTokenBuilder2.Role.ROLE_SUBSCRIBER, 600, 0);
+        assertTrue(reader.wrap(token2));
+        issueTs = reader.getIssueTs();
+        assertEquals(TokenVerifier.Result.VALID, verifier.verify(token2, null, null, issueTs + 600));
+        assertEquals(TokenVerifier.Result.EXPIRED, verifier.verify(token2, null, null, issueTs + 601));
+
+        int now = Utils.getTimestamp();
+        AccessToken accessToken = new AccessToken(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, "1001");
+        accessToken.message.ts = now + 600;
+        accessToken.addPrivilege(AccessToken.Privileges.kJoinChannel, now + 300);
+        String token = accessToken.build();
+        assertEquals(TokenVerifier.Result.VALID, verifier.verify(token, CHANNEL_NAME, "1001", now + 300));
+        assertEquals(TokenVerifier.Result.PRIVILEGE_EXPIRED, verifier.verify(token, CHANNEL_NAME, "1001", now + 301));
+
+        accessToken = new AccessToken(APP_ID, APP_CERTIFICATE, CHANNEL_NAME, "1001");
+        accessToken.message.ts = now + 600;
+        accessToken.addPrivilege(AccessToken.Privileges.kJoinChannel, 0);
+        token = accessToken.build();
+        assertEquals(TokenVerifier.Result.VALID, verifier.verify(token, CHANNEL_NAME, "1001", now + 600));
+        assertEquals(TokenVerifier.Result.EXPIRED, verifier.verify(token, CHANNEL_NAME, "1001", now + 601));
+    }
+}